@@ -18,6 +18,9 @@
  */
 package org.digitalmediaserver.crowdin;
 
+import static org.digitalmediaserver.crowdin.tool.Constants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+import static org.digitalmediaserver.crowdin.tool.Constants.LANGUAGES_DELIMITER;
+import static org.digitalmediaserver.crowdin.tool.Constants.LANGUAGE_CODE;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
@@ -25,7 +28,9 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.maven.execution.MavenSession;
@@ -35,12 +40,19 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Server;
 import org.apache.maven.settings.Settings;
+import org.digitalmediaserver.crowdin.configuration.BuildPolicy;
 import org.digitalmediaserver.crowdin.configuration.StatusFile;
 import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
+import org.digitalmediaserver.crowdin.tool.AsyncCrowdinAPI;
 import org.digitalmediaserver.crowdin.tool.CrowdinAPI;
 import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.ItemType;
+import org.digitalmediaserver.crowdin.tool.CrowdinProject;
+import org.digitalmediaserver.crowdin.tool.ExportRecord;
 import org.digitalmediaserver.crowdin.tool.GitUtil;
-import org.jdom2.Document;
+import org.digitalmediaserver.crowdin.tool.ProjectCache;
+import org.digitalmediaserver.crowdin.tool.RetryStrategy;
+import org.digitalmediaserver.crowdin.tool.SessionContext;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -64,6 +76,31 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 	*/
 	private MavenSession mavenSession;
 
+	/**
+	 * @return The {@link MavenSession}.
+	 */
+	protected MavenSession getMavenSession() {
+		return mavenSession;
+	}
+
+	/**
+	 * Sets the {@link MavenSession}.
+	 *
+	 * @param session the {@link MavenSession} to set.
+	 */
+	protected void setMavenSession(MavenSession session) {
+		mavenSession = session;
+	}
+
+	/**
+	 * @return The {@link SessionContext} for the current {@link MavenSession}
+	 *         or {@code null} if there is no {@link MavenSession}.
+	 */
+	@Nullable
+	protected SessionContext getSessionContext() {
+		return mavenSession == null ? null : SessionContext.get(mavenSession, getLog());
+	}
+
 	/**
 	 * The current Maven project
 	 *
@@ -108,6 +145,219 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 		downloadFolderPath = folder;
 	}
 
+	/**
+	 * The number of threads to use for extracting the downloaded translations
+	 * archive. If greater than {@code 1}, the archive is first downloaded to a
+	 * temporary file and then extracted in parallel, split by language folder.
+	 * If {@code 1}, the archive is extracted while it's being downloaded.
+	 *
+	 * @parameter property="extractThreads" default-value="1"
+	 */
+	protected int extractThreads;
+
+	/**
+	 * Sets the number of threads to use for extracting the downloaded
+	 * translations archive.
+	 *
+	 * @param extractThreads the number of threads.
+	 */
+	protected void setExtractThreads(int extractThreads) {
+		this.extractThreads = extractThreads;
+	}
+
+	/**
+	 * The number of threads to use for transforming and writing the files
+	 * deployed by {@code deploy}. The downloaded files are found and parsed
+	 * first, and then deployed in parallel if greater than {@code 1}.
+	 *
+	 * @parameter property="deployThreads" default-value="1"
+	 */
+	protected int deployThreads;
+
+	/**
+	 * Sets the number of threads to use for deploying files.
+	 *
+	 * @param deployThreads the number of threads.
+	 */
+	protected void setDeployThreads(int deployThreads) {
+		this.deployThreads = deployThreads;
+	}
+
+	/**
+	 * Whether to only extract and deploy the translation files that have
+	 * changed since the last fetch. A manifest of the downloaded files is kept
+	 * in the {@code .crowdin} subfolder of {@link #downloadFolder}, and files
+	 * whose CRC-32 and size match the manifest aren't extracted again. The
+	 * changed files are collected until a deploy succeeds, so changes from
+	 * several fetches are all deployed. The download folder is only cleaned
+	 * when no valid manifest exists.
+	 *
+	 * @parameter property="skipUnchanged" default-value="false"
+	 */
+	protected boolean skipUnchanged;
+
+	/**
+	 * Sets whether to only extract and deploy the translation files that have
+	 * changed since the last fetch.
+	 *
+	 * @param skipUnchanged {@code true} to skip unchanged files, {@code false}
+	 *            otherwise.
+	 */
+	protected void setSkipUnchanged(boolean skipUnchanged) {
+		this.skipUnchanged = skipUnchanged;
+	}
+
+	/**
+	 * When {@code build} should ask crowdin to export the translations. The
+	 * time and result of every export request is recorded per project and
+	 * branch in {@link #projectCacheFolder}. The records are deleted when this
+	 * plugin uploads files or translations. Valid values are:
+	 * <ul>
+	 * <li>always — Always ask crowdin to export the translations</li>
+	 * <li>ifStale — Only ask crowdin to export the translations if the last
+	 * recorded export is older than {@link #buildStaleAfter} minutes</li>
+	 * <li>never — Never ask crowdin to export the translations</li>
+	 * </ul>
+	 *
+	 * @parameter property="buildPolicy" default-value="always"
+	 */
+	protected BuildPolicy buildPolicy;
+
+	/**
+	 * The age in minutes after which a recorded export is considered stale if
+	 * {@link #buildPolicy} is {@code ifStale}. Crowdin won't export unpaid
+	 * projects more often than every 30 minutes via the API.
+	 *
+	 * @parameter property="buildStaleAfter" default-value="30"
+	 */
+	protected int buildStaleAfter;
+
+	/**
+	 * Sets when to ask crowdin to export the translations.
+	 *
+	 * @param buildPolicy the {@link BuildPolicy}.
+	 */
+	protected void setBuildPolicy(BuildPolicy buildPolicy) {
+		this.buildPolicy = buildPolicy;
+	}
+
+	/**
+	 * Sets the age in minutes after which a recorded export is considered
+	 * stale.
+	 *
+	 * @param buildStaleAfter the age in minutes.
+	 */
+	protected void setBuildStaleAfter(int buildStaleAfter) {
+		this.buildStaleAfter = buildStaleAfter;
+	}
+
+	/**
+	 * Whether {@code build} should wait until crowdin has finished exporting
+	 * the translations. The export status is polled with a delay that adapts
+	 * to the reported progress, so that a following {@code fetch} downloads
+	 * the latest translations.
+	 *
+	 * @parameter property="waitForBuild" default-value="true"
+	 */
+	protected boolean waitForBuild;
+
+	/**
+	 * The maximum time in seconds to wait for crowdin to finish exporting
+	 * the translations if {@link #waitForBuild} is {@code true}.
+	 *
+	 * @parameter property="buildTimeout" default-value="600"
+	 */
+	protected int buildTimeout;
+
+	/**
+	 * Sets whether to wait until crowdin has finished exporting the
+	 * translations.
+	 *
+	 * @param waitForBuild {@code true} to wait, {@code false} otherwise.
+	 */
+	protected void setWaitForBuild(boolean waitForBuild) {
+		this.waitForBuild = waitForBuild;
+	}
+
+	/**
+	 * Sets the maximum time in seconds to wait for crowdin to finish
+	 * exporting the translations.
+	 *
+	 * @param buildTimeout the timeout in seconds.
+	 */
+	protected void setBuildTimeout(int buildTimeout) {
+		this.buildTimeout = buildTimeout;
+	}
+
+	/**
+	 * The number of segments to download the translations archive in using
+	 * HTTP {@code Range} requests. Segments are downloaded in parallel and a
+	 * segment whose connection drops is resumed from where it stopped. If the
+	 * download fails anyway, the partial download is kept in
+	 * {@link #projectCacheFolder} and resumed by the next fetch as long as the
+	 * archive at crowdin hasn't changed. Specify {@code 0} to download the
+	 * archive as a single stream without resume support.
+	 *
+	 * @parameter property="downloadSegments" default-value="0"
+	 */
+	protected int downloadSegments;
+
+	/**
+	 * Sets the number of segments to download the translations archive in.
+	 *
+	 * @param downloadSegments the number of segments or {@code 0} to disable
+	 *            segmented downloads.
+	 */
+	protected void setDownloadSegments(int downloadSegments) {
+		this.downloadSegments = downloadSegments;
+	}
+
+	/**
+	 * A comma separated list of crowdin language codes to download
+	 * translations for. If specified, a translations archive is downloaded
+	 * for each language concurrently instead of downloading the archive for
+	 * all languages.
+	 *
+	 * @parameter property="languages"
+	 */
+	protected String languages;
+
+	/**
+	 * Sets the comma separated list of crowdin language codes to download
+	 * translations for.
+	 *
+	 * @param languages the language codes or {@code null} for all languages.
+	 */
+	protected void setLanguages(String languages) {
+		this.languages = languages;
+	}
+
+	/**
+	 * Parses {@link #languages}.
+	 *
+	 * @return The {@link List} of crowdin language codes, which is empty if
+	 *         translations for all languages should be downloaded.
+	 * @throws MojoExecutionException If {@link #languages} contains an invalid
+	 *             language code.
+	 */
+	@Nonnull
+	protected List<String> getLanguages() throws MojoExecutionException {
+		List<String> result = new ArrayList<>();
+		if (isBlank(languages)) {
+			return result;
+		}
+		for (String code : LANGUAGES_DELIMITER.split(languages.trim())) {
+			if (code.isEmpty() || result.contains(code)) {
+				continue;
+			}
+			if (!LANGUAGE_CODE.matcher(code).matches()) {
+				throw new MojoExecutionException("Invalid language code \"" + code + "\" in \"languages\"");
+			}
+			result.add(code);
+		}
+		return result;
+	}
+
 	/**
 	 * Sets the {@link #downloadFolder} and {@link #downloadFolderPath} values.
 	 *
@@ -206,9 +456,145 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 		this.statusFiles = statusFiles;
 	}
 
+	/**
+	 * The maximum total number of pooled HTTP connections. The HTTP client is
+	 * shared by all crowdin goals executed in the same Maven session, so only
+	 * the value used by the goal that creates it has any effect.
+	 *
+	 * @parameter property="maxConnections" default-value="20"
+	 */
+	protected int maxConnections;
+
+	/**
+	 * The maximum number of pooled HTTP connections per route. The HTTP client
+	 * is shared by all crowdin goals executed in the same Maven session, so
+	 * only the value used by the goal that creates it has any effect.
+	 *
+	 * @parameter property="maxConnectionsPerRoute" default-value="8"
+	 */
+	protected int maxConnectionsPerRoute;
+
+	/**
+	 * Sets the maximum number of concurrent HTTP connections per route, which
+	 * also limits the number of concurrent asynchronous crowdin API calls.
+	 *
+	 * @param maxConnectionsPerRoute the maximum number of connections per
+	 *            route.
+	 */
+	protected void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * The maximum time in seconds to keep idle HTTP connections alive. Idle
+	 * connections are evicted from the connection pool when they expire.
+	 *
+	 * @parameter property="connectionKeepAlive" default-value="30"
+	 */
+	protected int connectionKeepAlive;
+
+	/**
+	 * The maximum number of times to retry a failed crowdin API call.
+	 * Idempotent calls like {@code info}, {@code status} and {@code download}
+	 * are retried on connection errors, timeouts and HTTP status 429, 502, 503
+	 * and 504. Calls that modify the crowdin project are only retried if the
+	 * request never reached crowdin or crowdin replied with HTTP status 429.
+	 * The project information and streamed translations archives are also
+	 * requested again if the connection fails while they are being read.
+	 * Specify {@code 0} to disable retrying.
+	 *
+	 * @parameter property="maxRetries" default-value="4"
+	 */
+	protected int maxRetries;
+
+	/**
+	 * The delay in milliseconds before the first retry of a failed crowdin API
+	 * call. The delay is doubled for every subsequent retry and randomized to
+	 * avoid synchronized retries. A {@code Retry-After} header sent by crowdin
+	 * takes precedence.
+	 *
+	 * @parameter property="retryDelay" default-value="1000"
+	 */
+	protected long retryDelay;
+
+	/**
+	 * The maximum delay in milliseconds between retries of a failed crowdin
+	 * API call, unless crowdin asks for a longer delay using
+	 * {@code Retry-After}.
+	 *
+	 * @parameter property="maxRetryDelay" default-value="30000"
+	 */
+	protected long maxRetryDelay;
+
+	/**
+	 * Sets the maximum number of retries of failed crowdin API calls.
+	 *
+	 * @param maxRetries the maximum number of retries.
+	 */
+	protected void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Sets the delay in milliseconds before the first retry of a failed
+	 * crowdin API call.
+	 *
+	 * @param retryDelay the delay in milliseconds.
+	 */
+	protected void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * The time in seconds to keep cached crowdin project information on disk.
+	 * Cached project information is shared by goals and reactor modules, and
+	 * is invalidated automatically when this plugin creates or updates files
+	 * or folders on crowdin. Changes made to the crowdin project by others
+	 * won't be seen until the cached information expires. Specify {@code 0}
+	 * to disable caching.
+	 *
+	 * @parameter property="projectCacheTTL" default-value="0"
+	 */
+	protected int projectCacheTTL;
+
+	/**
+	 * The folder where cached crowdin project information is stored.
+	 *
+	 * @parameter property="projectCacheFolder" default-value="${user.home}/.m2/crowdin-maven-plugin"
+	 */
+	protected File projectCacheFolder;
+
+	/**
+	 * Sets the folder where cached crowdin project information and partial
+	 * downloads are stored.
+	 *
+	 * @param projectCacheFolder the folder.
+	 */
+	protected void setProjectCacheFolder(File projectCacheFolder) {
+		this.projectCacheFolder = projectCacheFolder;
+	}
+
+	/** The {@link ProjectCache} or {@code null} if caching is disabled */
+	@Nullable
+	protected ProjectCache projectCache;
+
+	/**
+	 * Sets the {@link ProjectCache} to use.
+	 *
+	 * @param projectCache the {@link ProjectCache} or {@code null} to disable
+	 *            caching.
+	 */
+	protected void setProjectCache(@Nullable ProjectCache projectCache) {
+		this.projectCache = projectCache;
+	}
+
 	/** The HTTP client */
 	protected CloseableHttpClient client;
 
+	/** The cached Git branch name */
+	@Nullable
+	protected String gitBranch;
+
 	/**
 	 * Sets the {@link CloseableHttpClient}.
 	 *
@@ -268,8 +654,9 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 	}
 
 	/**
-	 * Initializes {@link #client} with a new {@link CloseableHttpClient}
-	 * instance unless one has already been created.
+	 * Initializes {@link #client} with the pooled {@link CloseableHttpClient}
+	 * shared by all crowdin goals in the current Maven session unless a client
+	 * has already been set.
 	 *
 	 * @throws MojoExecutionException If an error occurs during the operation.
 	 */
@@ -277,13 +664,61 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 		if (client != null) {
 			return;
 		}
+		RetryStrategy retryStrategy = maxRetries > 0 ? createRetryStrategy() : null;
 		try {
-			client = CrowdinAPI.createHTTPClient();
+			if (mavenSession == null) {
+				client = CrowdinAPI.createHTTPClient(
+					maxConnections,
+					maxConnectionsPerRoute,
+					connectionKeepAlive * 1000L,
+					retryStrategy
+				);
+			} else {
+				client = SessionContext.get(mavenSession, getLog()).getHttpClient(
+					maxConnections,
+					maxConnectionsPerRoute,
+					connectionKeepAlive * 1000L,
+					retryStrategy,
+					getLog()
+				);
+			}
 		} catch (IOException e) {
 			throw new MojoExecutionException("An error occurred while creating the HTTP client: " + e.getMessage(), e);
 		}
 	}
 
+	/**
+	 * Creates a new {@link RetryStrategy} using {@link #maxRetries},
+	 * {@link #retryDelay} and {@link #maxRetryDelay}.
+	 *
+	 * @return The new {@link RetryStrategy}.
+	 */
+	@Nonnull
+	protected RetryStrategy createRetryStrategy() {
+		return new RetryStrategy(maxRetries, retryDelay, maxRetryDelay, getLog());
+	}
+
+	/**
+	 * Creates a new {@link AsyncCrowdinAPI} instance using {@link #client} and
+	 * {@link #server}. The number of concurrent requests is limited to
+	 * {@link #maxConnectionsPerRoute}. The returned instance must be closed
+	 * after use. Requires that:
+	 * <ul>
+	 * <li>{@link #createClient()} has been called first</li>
+	 * <li>{@link #initializeServer()} has been called first</li>
+	 * </ul>
+	 *
+	 * @return The new {@link AsyncCrowdinAPI}.
+	 */
+	protected AsyncCrowdinAPI createAsyncAPI() {
+		return new AsyncCrowdinAPI(
+			client,
+			server,
+			maxConnectionsPerRoute > 0 ? maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+			getLog()
+		);
+	}
+
 	/**
 	 * Initializes the {@link Mojo} parameters since they are set via reflection
 	 * and can't be handled in the constructor.
@@ -292,6 +727,41 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 	 */
 	protected void initializeParameters() throws MojoExecutionException {
 		downloadFolderPath = downloadFolder != null ?  downloadFolder.toPath() : null;
+		if (projectCache == null && projectCacheTTL > 0 && projectCacheFolder != null) {
+			projectCache = new ProjectCache(projectCacheFolder.toPath(), projectCacheTTL * 1000L);
+		}
+		if (projectCacheFolder != null) {
+			ExportRecord.addFolder(projectCacheFolder.toPath());
+		}
+	}
+
+	/**
+	 * Gets the current Git branch. The result is cached, so Git is only
+	 * queried once per {@link Mojo} instance.
+	 *
+	 * @return The name of the current Git branch.
+	 * @throws MojoExecutionException If the Git branch can't be determined.
+	 */
+	@Nonnull
+	protected String getGitBranch() throws MojoExecutionException {
+		if (gitBranch == null) {
+			SessionContext context = getSessionContext();
+			String baseFolder = project.getBasedir() == null ? "" : project.getBasedir().getAbsolutePath();
+			String branch = context == null ? null : context.getGitBranch(baseFolder);
+			if (branch == null) {
+				getLog().info("Determining git branch..");
+				branch = GitUtil.getBranch(project.getBasedir(), getLog());
+				if (isBlank(branch)) {
+					throw new MojoExecutionException("Could not determine current git branch");
+				}
+				getLog().info("Git branch is \"" + branch + "\"");
+				if (context != null) {
+					context.setGitBranch(baseFolder, branch);
+				}
+			}
+			gitBranch = branch;
+		}
+		return gitBranch;
 	}
 
 	/**
@@ -307,40 +777,86 @@ public abstract class AbstractCrowdinMojo extends AbstractMojo {
 		return getBranch(false, null);
 	}
 
+	/**
+	 * Gets the crowdin project information, optionally pruned to the specified
+	 * branch. Project information is memoized for the {@link MavenSession},
+	 * and the {@link ProjectCache} is used if enabled. Requires that:
+	 * <ul>
+	 * <li>{@link #createClient()} has been called first</li>
+	 * <li>{@link #initializeServer()} has been called first</li>
+	 * </ul>
+	 *
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 *            If {@code null}, all branches are pruned.
+	 * @param prune whether to prune the file tree.
+	 * @return The {@link CrowdinProject}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected CrowdinProject getProjectInfo(@Nullable String branch, boolean prune) throws IOException {
+		SessionContext context = getSessionContext();
+		String identifier = server.getUsername();
+		CrowdinProject result = context == null ? null : context.getProjectInfo(identifier, branch, prune);
+		if (result != null) {
+			getLog().debug("Using crowdin project information from the current session");
+			return result;
+		}
+		if (projectCache != null) {
+			result = projectCache.load(identifier, branch, prune, getLog());
+		}
+		if (result == null) {
+			result = CrowdinAPI.getProjectInfo(client, server, branch, prune, createRetryStrategy(), getLog());
+			if (projectCache != null) {
+				projectCache.store(identifier, result, getLog());
+			}
+		}
+		if (context != null) {
+			context.setProjectInfo(identifier, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Creates or gets the crowdin branch name that matches the name of the
 	 * current Git branch.
 	 *
 	 * @param create whether the branch should be created at crowdin if it
 	 *            doesn't exist.
-	 * @param projectDetails the {@link Document} containing the project
-	 *            details. If {@code null} the project details will be retrieved
-	 *            from crowdin.
+	 * @param projectInfo the {@link CrowdinProject} containing the project
+	 *            information. If {@code null} or if it doesn't cover the
+	 *            branch, the project information will be retrieved from
+	 *            crowdin. If the branch is created, it's added to the file
+	 *            tree of {@code projectInfo}.
 	 * @return The branch name or {@code null} if the current git branch is the
 	 *         crowdin root.
 	 * @throws MojoExecutionException If an error occurs during the operation.
 	 */
 	@Nullable
-	protected String getBranch(boolean create, @Nullable Document projectDetails) throws MojoExecutionException {
-		getLog().info("Determining git branch..");
-		String branch = GitUtil.getBranch(project.getBasedir(), getLog());
-		if (isBlank(branch)) {
-			throw new MojoExecutionException("Could not determine current git branch");
-		}
-		getLog().info("Git branch is \"" + branch + "\"");
+	protected String getBranch(boolean create, @Nullable CrowdinProject projectInfo) throws MojoExecutionException {
+		String branch = getGitBranch();
 		if (branch.equals(rootBranch)) {
 			return null;
 		}
+		SessionContext context = getSessionContext();
+		if (context != null && branch.equals(context.getBranch(server.getUsername(), branch))) {
+			return branch;
+		}
 		try {
-			if (CrowdinFileSystem.containsBranch(
-				CrowdinAPI.getFiles(client, server, null, projectDetails, getLog()),
-				branch,
-				getLog()
-			)) {
+			if (projectInfo == null || !projectInfo.covers(branch)) {
+				projectInfo = getProjectInfo(branch, true);
+			}
+			if (CrowdinFileSystem.containsBranch(projectInfo.getRoot(), branch, getLog())) {
 				getLog().info("Found branch \"" + branch + "\" on crowdin");
+				if (context != null) {
+					context.setBranch(server.getUsername(), branch, branch);
+				}
 				return branch;
 			} else if (create) {
 				CrowdinFileSystem.createBranch(client, server, branch, getLog());
+				projectInfo.addItem(projectInfo.getRoot(), ItemType.BRANCH, branch, null);
+				if (context != null) {
+					context.setBranch(server.getUsername(), branch, branch);
+				}
 				return branch;
 			}
 		} catch (IOException e) {
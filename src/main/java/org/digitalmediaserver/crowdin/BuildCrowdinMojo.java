@@ -20,8 +20,13 @@ package org.digitalmediaserver.crowdin;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.digitalmediaserver.crowdin.configuration.BuildPolicy;
 import org.digitalmediaserver.crowdin.tool.CrowdinAPI;
+import org.digitalmediaserver.crowdin.tool.ExportRecord;
+import org.digitalmediaserver.crowdin.tool.ExportStatusPoller;
 import org.jdom2.Document;
 
 /**
@@ -49,19 +54,42 @@ public class BuildCrowdinMojo extends AbstractCrowdinMojo {
 	 */
 	public void doExecute() throws MojoExecutionException {
 		String branch = getBranch();
+		BuildPolicy policy = buildPolicy == null ? BuildPolicy.always : buildPolicy;
+		if (policy == BuildPolicy.never) {
+			getLog().info("Not asking crowdin to build translations since \"buildPolicy\" is \"never\"");
+			return;
+		}
+		ExportRecord record = loadExportRecord(branch);
+		if (policy == BuildPolicy.ifStale) {
+			if (record != null && record.getAge() >= 0 && record.getAge() < buildStaleAfter * 60000L) {
+				getLog().info(
+					"Not asking crowdin to build translations since they were built " +
+					TimeUnit.MILLISECONDS.toMinutes(record.getAge()) + " minutes ago"
+				);
+				if (waitForBuild && !isFinished(record.getStatus())) {
+					waitForExport(branch);
+					storeExportRecord(branch, new ExportRecord(record.getTime(), ExportStatusPoller.FINISHED));
+				}
+				return;
+			}
+		}
+
 		if (branch == null) {
 			getLog().info("Asking crowdin to build translations");
 		} else {
 			getLog().info("Asking crowdin to build translations for branch \"" + branch + "\"");
 		}
 
-		HashMap<String, String> parameters = null;
+		HashMap<String, String> parameters = new HashMap<>();
 		if (branch != null) {
-			parameters = new HashMap<>();
 			parameters.put("branch", branch);
 		}
+		if (waitForBuild) {
+			parameters.put("async", "1");
+		}
 
 		Document document;
+		long requestTime = System.currentTimeMillis();
 		try {
 			document = CrowdinAPI.requestGetDocument(client, server, "export", parameters, getLog());
 		} catch (IOException e) {
@@ -76,8 +104,98 @@ public class BuildCrowdinMojo extends AbstractCrowdinMojo {
 			);
 		} else if (status.equals("built")) {
 			getLog().info("Crowdin successfully built translations");
-		} else {
+		} else if (!waitForBuild || !status.equals("in-progress")) {
 			getLog().warn("Crowdin replied to build request with an unexpected status: \"" + status + "\"");
 		}
+
+		// Crowdin skips the export when it has already exported, so a skipped
+		// export is only as recent as the last recorded one
+		long exportTime;
+		if (!status.equals("skipped")) {
+			exportTime = requestTime;
+		} else if (record != null) {
+			exportTime = record.getTime();
+		} else {
+			exportTime = -1L;
+		}
+		if (exportTime >= 0) {
+			storeExportRecord(branch, new ExportRecord(exportTime, status));
+		}
+
+		if (waitForBuild) {
+			waitForExport(branch);
+			if (exportTime >= 0) {
+				storeExportRecord(branch, new ExportRecord(exportTime, ExportStatusPoller.FINISHED));
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the specified recorded export status means that the
+	 * export was finished.
+	 *
+	 * @param status the export status.
+	 * @return {@code true} if the export was finished, {@code false}
+	 *         otherwise.
+	 */
+	protected static boolean isFinished(String status) {
+		return "built".equals(status) || "skipped".equals(status) || ExportStatusPoller.FINISHED.equals(status);
+	}
+
+	/**
+	 * Loads the {@link ExportRecord} for the current project and the
+	 * specified branch.
+	 *
+	 * @param branch the branch name or {@code null}.
+	 * @return The {@link ExportRecord} or {@code null}.
+	 */
+	protected ExportRecord loadExportRecord(String branch) {
+		if (projectCacheFolder == null) {
+			return null;
+		}
+		return ExportRecord.load(projectCacheFolder.toPath(), server.getUsername(), branch, getLog());
+	}
+
+	/**
+	 * Stores the specified {@link ExportRecord} for the current project and
+	 * the specified branch.
+	 *
+	 * @param branch the branch name or {@code null}.
+	 * @param record the {@link ExportRecord} to store.
+	 */
+	protected void storeExportRecord(String branch, ExportRecord record) {
+		if (projectCacheFolder != null) {
+			record.store(projectCacheFolder.toPath(), server.getUsername(), branch, getLog());
+		}
+	}
+
+	/**
+	 * Waits until crowdin has finished exporting the translations, using an
+	 * {@link ExportStatusPoller}. This also waits for exports started by
+	 * others.
+	 *
+	 * @param branch the branch name or {@code null}.
+	 * @throws MojoExecutionException If the export doesn't finish within
+	 *             {@link AbstractCrowdinMojo#buildTimeout} seconds or an error
+	 *             occurs during the operation.
+	 */
+	protected void waitForExport(String branch) throws MojoExecutionException {
+		ExportStatusPoller poller = new ExportStatusPoller(
+			client,
+			server,
+			branch,
+			ExportStatusPoller.DEFAULT_INITIAL_DELAY,
+			ExportStatusPoller.DEFAULT_MAX_DELAY,
+			buildTimeout * 1000L,
+			getLog()
+		);
+		try {
+			poller.waitForExport();
+		} catch (TimeoutException e) {
+			throw new MojoExecutionException(e.getMessage(), e);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Failed to get the build status from crowdin: " + e.getMessage(), e);
+		}
+		getLog().info("Crowdin translations are ready for download");
 	}
 }
@@ -21,7 +21,10 @@ package org.digitalmediaserver.crowdin;
 import static org.digitalmediaserver.crowdin.tool.Constants.*;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
@@ -32,12 +35,24 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -48,10 +63,14 @@ import org.digitalmediaserver.crowdin.configuration.PathPlaceholder;
 import org.digitalmediaserver.crowdin.configuration.PlaceholderConversion;
 import org.digitalmediaserver.crowdin.configuration.StatusFile;
 import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
+import org.digitalmediaserver.crowdin.tool.AsyncCrowdinAPI;
 import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem;
 import org.digitalmediaserver.crowdin.tool.FIFOProperties;
+import org.digitalmediaserver.crowdin.tool.FetchManifest;
 import org.digitalmediaserver.crowdin.tool.GroupSortedProperties;
 import org.digitalmediaserver.crowdin.tool.OrderedProperties;
+import org.digitalmediaserver.crowdin.tool.PathFilter;
+import org.digitalmediaserver.crowdin.tool.ZipExtractor;
 import org.jdom2.Comment;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -70,6 +89,9 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 @SuppressFBWarnings("UWF_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD")
 public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 
+	/** The thread counter used for naming */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
 	@Override
 	public void execute() throws MojoExecutionException {
 		initializeParameters();
@@ -91,6 +113,11 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 		if (Files.isDirectory(downloadFolderPath)) {
 			final Set<MatchInfo> fileSetMatches = buildFileSetMatches();
 			final Path statusFile = downloadFolderPath.resolve(STATUS_DOWNLOAD_FILENAME);
+			final Set<String> changedFiles = skipUnchanged ? FetchManifest.loadChanges(downloadFolderPath, getLog()) : null;
+			if (changedFiles != null) {
+				getLog().info("Deploying the " + changedFiles.size() + " files that changed since the last deploy");
+			}
+			final List<DeployItem> items = new ArrayList<>();
 
 			try {
 				Files.walkFileTree(downloadFolderPath, new FileVisitor<Path>() {
@@ -130,153 +157,25 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 							getLog().warn("Couldn't parse \"" + file + "\" - skipping file");
 							return FileVisitResult.CONTINUE;
 						}
-						TranslationFileSet fileSet = parseResult.getMatchInfo().getFileSet();
-
-						// Include & exclude
-						List<String> includes = fileSet.getIncludes();
-						if (includes != null && includes.isEmpty()) {
-							includes = null;
-						}
-						List<String> excludes = fileSet.getExcludes();
-						if (excludes != null && excludes.isEmpty()) {
-							excludes = null;
-						}
-						if (includes != null || excludes != null) {
-							int downloadFolderLength = downloadFolderPath.getNameCount();
-							if (file.getNameCount() - downloadFolderLength < 1) {
-								throw new AssertionError(
-									"Internal error in DeployCrowdinMojo.doExecute(), nameCount=" +
-									file.getNameCount() + ", downloadFolderLength=" + downloadFolderLength
-								);
-							}
-							String relativeFile = CrowdinFileSystem.formatPath(
-								file.subpath(downloadFolderLength, file.getNameCount()),
-								false
+						int downloadFolderLength = downloadFolderPath.getNameCount();
+						if (file.getNameCount() - downloadFolderLength < 1) {
+							throw new AssertionError(
+								"Internal error in DeployCrowdinMojo.doExecute(), nameCount=" +
+								file.getNameCount() + ", downloadFolderLength=" + downloadFolderLength
 							);
-							Path fileNamePath = file.getFileName();
-							String fileName = fileNamePath == null ? null : fileNamePath.toString();
-							if (includes != null) {
-								boolean found = false;
-								for (String include : includes) {
-									Pattern pattern = createFilterPattern(include);
-									if (
-										pattern != null && (
-											pattern.matcher(relativeFile.toString()).matches() ||
-											pattern.matcher(fileName).matches()
-									)) {
-										found = true;
-										break;
-									}
-								}
-								if (!found) {
-									getLog().debug(
-										"Skipping file \"" + file + "\"because it's not included in fileset \"" + fileSet + "\""
-									);
-									return FileVisitResult.CONTINUE;
-								}
-							}
-							if (excludes != null && !excludes.isEmpty()) {
-								for (String exclude : excludes) {
-									Pattern pattern = createFilterPattern(exclude);
-									if (
-										pattern != null && (
-											pattern.matcher(relativeFile.toString()).matches() ||
-											pattern.matcher(fileName).matches()
-									)) {
-										getLog().debug(
-											"Skipping file \"" + file + "\"because it is excluded in fileset \"" + fileSet + "\""
-										);
-										return FileVisitResult.CONTINUE;
-									}
-								}
-							}
-						}
-
-						Path targetFile = fileSet.getLanguageFilesFolder().toPath().resolve(parseResult.getTargetFile());
-						Path targetFolder = targetFile.getParent();
-						if (targetFolder != null && !Files.exists(targetFolder)) {
-							getLog().info("Creating folder \"" + targetFolder + "\"");
-							Files.createDirectories(targetFolder);
 						}
-						getLog().info("Deploying file \"" + targetFile.toAbsolutePath() + "\" from \"" + file + "\"");
-
-						String commentHeader;
-						if (Boolean.TRUE.equals(fileSet.getAddComent())) {
-							if (isBlank(fileSet.getComment())) {
-								commentHeader = isBlank(comment) ? DEFAULT_COMMENT : comment;
-							} else {
-								commentHeader = fileSet.getComment();
-							}
-						} else {
-							commentHeader = null;
-						}
-						String currentLineSeparator = fileSet.getLineSeparator() != null ? fileSet.getLineSeparator() : lineSeparator;
-						if (currentLineSeparator != null) {
-							currentLineSeparator = currentLineSeparator.replace("\\r", "\r").replace("\\n", "\n");
+						String relativeFile = CrowdinFileSystem.formatPath(
+							file.subpath(downloadFolderLength, file.getNameCount()),
+							false
+						);
+						if (!isIncluded(parseResult.getMatchInfo().getFileSet(), relativeFile)) {
+							return FileVisitResult.CONTINUE;
 						}
-
-						if (fileSet.getType() == FileType.properties) {
-							OrderedProperties orderedProperties = Boolean.TRUE.equals(fileSet.getSortLines()) ?
-								new GroupSortedProperties() :
-								new FIFOProperties();
-							try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-								orderedProperties.load(reader);
-							}
-							try (BufferedWriter writer = Files.newBufferedWriter(targetFile, fileSet.getCharset())) {
-								orderedProperties.store(
-									writer,
-									commentHeader,
-									currentLineSeparator,
-									!Boolean.FALSE.equals(fileSet.getEscapeUnicode())
-								);
-							}
-						} else {
-							if (Boolean.TRUE.equals(fileSet.getSortLines())) {
-								throw new IOException("Invalid option", new MojoExecutionException(
-									"Option \"sortLines\" isn't supported for " + fileSet.getType() + " files"
-								));
-							}
-							if (Boolean.TRUE.equals(fileSet.getEscapeUnicode())) {
-								throw new IOException("Invalid option", new MojoExecutionException(
-									"Option \"escapeUnicode\" isn't supported for " + fileSet.getType() + " files"
-								));
-							}
-
-							if (
-								!fileSet.getCharset().equals(StandardCharsets.UTF_8) ||
-								Boolean.TRUE.equals(fileSet.getAddComent()) ||
-								currentLineSeparator != null
-							) {
-								// "Manual" copy
-								try (
-									BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
-									BufferedWriter writer = Files.newBufferedWriter(targetFile, fileSet.getCharset());
-								) {
-									if (Boolean.TRUE.equals(fileSet.getAddComent())) {
-										if (fileSet.getType() == FileType.html || fileSet.getType() == FileType.xml) {
-											writer.write("<!-- ");
-											writer.write(commentHeader);
-											writer.write(" -->");
-										} else {
-											writer.write(fileSet.getCommentTag());
-											writer.write(" ");
-											writer.write(commentHeader);
-										}
-										OrderedProperties.writeNewLine(writer, currentLineSeparator);
-										OrderedProperties.writeNewLine(writer, currentLineSeparator);
-									}
-
-									for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-										writer.write(line);
-										OrderedProperties.writeNewLine(writer, currentLineSeparator);
-									}
-									writer.flush();
-								}
-							} else {
-								// Filesystem copy
-								copyFile(file, targetFile, true);
-							}
+						if (changedFiles != null && !changedFiles.contains(relativeFile)) {
+							getLog().debug("Skipping unchanged file \"" + relativeFile + "\"");
+							return FileVisitResult.CONTINUE;
 						}
+						items.add(new DeployItem(file, parseResult));
 						return FileVisitResult.CONTINUE;
 					}
 
@@ -298,6 +197,14 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 				}
 				throw new MojoExecutionException("An I/O error occurred while deploying translations: " + e.getMessage(), e);
 			}
+			deployItems(items);
+			if (changedFiles != null) {
+				try {
+					FetchManifest.storeChanges(downloadFolderPath, Collections.<String>emptySet());
+				} catch (IOException e) {
+					throw new MojoExecutionException("Failed to clear the fetch change set: " + e.getMessage(), e);
+				}
+			}
 		} else {
 			if (!Files.exists(downloadFolderPath)) {
 				throw new MojoExecutionException("Crowdin download folder (" + downloadFolderPath + ") doesn't exist. Call fetch first.");
@@ -306,6 +213,369 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 		}
 	}
 
+	/**
+	 * Deploys the specified {@link DeployItem}s. The target folders are
+	 * created first, and then the files are transformed and written using up
+	 * to {@link AbstractCrowdinMojo#deployThreads} threads. Items with the
+	 * same target file are deployed in order by the same thread. If any
+	 * items fail, all the failures are logged in walk order and the first is
+	 * thrown.
+	 *
+	 * @param items the {@link DeployItem}s in walk order.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected void deployItems(@Nonnull List<DeployItem> items) throws MojoExecutionException {
+		if (items.isEmpty()) {
+			return;
+		}
+		Map<Path, List<DeployItem>> groups = new LinkedHashMap<>();
+		Set<Path> folders = new LinkedHashSet<>();
+		for (DeployItem item : items) {
+			Path targetFile = item.getTargetFile();
+			List<DeployItem> group = groups.get(targetFile);
+			if (group == null) {
+				group = new ArrayList<>(1);
+				groups.put(targetFile, group);
+			}
+			group.add(item);
+			if (targetFile.getParent() != null) {
+				folders.add(targetFile.getParent());
+			}
+		}
+		try {
+			for (Path folder : folders) {
+				if (!Files.exists(folder)) {
+					getLog().info("Creating folder \"" + folder + "\"");
+					Files.createDirectories(folder);
+				}
+			}
+		} catch (IOException e) {
+			throw toMojoExecutionException(e);
+		}
+
+		int threads = Math.min(Math.max(deployThreads, 1), groups.size());
+		if (threads == 1) {
+			try {
+				for (DeployItem item : items) {
+					deployItem(item);
+				}
+			} catch (IOException e) {
+				throw toMojoExecutionException(e);
+			}
+			return;
+		}
+
+		getLog().debug("Deploying " + items.size() + " files using " + threads + " threads");
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "crowdin-deploy-" + THREAD_COUNTER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<Void>> futures = new ArrayList<>(groups.size());
+			for (final List<DeployItem> group : groups.values()) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws IOException {
+						for (DeployItem item : group) {
+							deployItem(item);
+						}
+						return null;
+					}
+				}));
+			}
+
+			// Wait for all, collecting the failures in walk order
+			IOException exception = null;
+			int failures = 0;
+			int i = 0;
+			for (List<DeployItem> group : groups.values()) {
+				try {
+					AsyncCrowdinAPI.get(futures.get(i++));
+				} catch (IOException e) {
+					if (Thread.currentThread().isInterrupted()) {
+						throw new MojoExecutionException("Interrupted while deploying translations", e);
+					}
+					failures++;
+					if (exception == null) {
+						exception = e;
+					}
+					String message = e.getCause() instanceof MojoExecutionException ? e.getCause().getMessage() : e.getMessage();
+					getLog().error("Failed to deploy \"" + group.get(0).getTargetFile() + "\": " + message);
+				}
+			}
+			if (exception != null) {
+				if (failures > 1) {
+					getLog().error(failures + " files failed to deploy");
+				}
+				throw toMojoExecutionException(exception);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Deploys a single {@link DeployItem}.
+	 *
+	 * @param item the {@link DeployItem} to deploy.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected void deployItem(@Nonnull DeployItem item) throws IOException {
+		try (InputStream is = Files.newInputStream(item.getSource())) {
+			deployFile(is, item.getParseResult(), item.getSource().toString());
+		}
+	}
+
+	/**
+	 * Converts an {@link IOException} from deploying to a
+	 * {@link MojoExecutionException}, unwrapping a configuration error.
+	 *
+	 * @param e the {@link IOException}.
+	 * @return The {@link MojoExecutionException}.
+	 */
+	@Nonnull
+	protected static MojoExecutionException toMojoExecutionException(@Nonnull IOException e) {
+		if (e.getCause() instanceof MojoExecutionException) {
+			return (MojoExecutionException) e.getCause();
+		}
+		return new MojoExecutionException("An I/O error occurred while deploying translations: " + e.getMessage(), e);
+	}
+
+	/**
+	 * Deploys the translation files contained in the specified zip archive
+	 * directly to their configured locations, without extracting them to
+	 * {@link AbstractCrowdinMojo#downloadFolder} first.
+	 *
+	 * @param inputStream the {@link InputStream} containing the zip archive.
+	 * @param extractor the {@link ZipExtractor} to use to also keep the raw
+	 *            files in {@link AbstractCrowdinMojo#downloadFolder} or
+	 *            {@code null} to not keep them.
+	 * @return The number of deployed files.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If a configuration error is encountered.
+	 */
+	protected int deployArchive(
+		@Nonnull InputStream inputStream,
+		@Nullable ZipExtractor extractor
+	) throws IOException, MojoExecutionException {
+		if (translationFileSets == null || translationFileSets.isEmpty()) {
+			throw new MojoExecutionException("No filesets are defined");
+		}
+		Set<MatchInfo> fileSetMatches = buildFileSetMatches();
+		int count = 0;
+		ZipInputStream zis = new ZipInputStream(inputStream);
+		InputStream entryStream = new FilterInputStream(zis) {
+
+			@Override
+			public void close() throws IOException {
+				// The entry is closed by getNextEntry()
+			}
+		};
+		ZipEntry entry;
+		while ((entry = zis.getNextEntry()) != null) {
+			String name = CrowdinFileSystem.formatPath(entry.getName(), false);
+			if (name.startsWith("/") || ("/" + name + "/").contains("/../")) {
+				throw new IOException("Invalid zip entry \"" + entry.getName() + "\"");
+			}
+			Path rawFile = extractor == null ? null : extractor.extractEntry(entry, zis);
+			if (entry.isDirectory()) {
+				continue;
+			}
+			if (name.startsWith(".") || name.contains("/.")) {
+				getLog().debug("Skipping \"" + name + "\"");
+				continue;
+			}
+			int slash = name.indexOf('/');
+			if (slash < 1) {
+				// Not inside a crowdin-code folder, so it's not a translation file
+				getLog().warn("Couldn't parse \"" + name + "\" - skipping file");
+				continue;
+			}
+
+			ParseResult parseResult;
+			try {
+				parseResult = parseFileName(name.substring(0, slash), name.substring(slash + 1), name, fileSetMatches);
+			} catch (IOException e) {
+				getLog().error("Unable to process file \"" + name + "\": " + e.getMessage());
+				continue;
+			}
+			if (!isIncluded(parseResult.getMatchInfo().getFileSet(), name)) {
+				continue;
+			}
+			if (rawFile == null) {
+				deployFile(entryStream, parseResult, name);
+			} else {
+				try (InputStream is = Files.newInputStream(rawFile)) {
+					deployFile(is, parseResult, rawFile.toString());
+				}
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Evaluates the includes and excludes of the specified
+	 * {@link TranslationFileSet} for the specified file.
+	 *
+	 * @param fileSet the {@link TranslationFileSet} to use.
+	 * @param relativeFile the file path relative to the download folder, using
+	 *            slash as separator.
+	 * @return {@code true} if the file should be deployed, {@code false} if it
+	 *         should be skipped.
+	 */
+	protected boolean isIncluded(@Nonnull TranslationFileSet fileSet, @Nonnull String relativeFile) {
+		List<PathFilter> includes = fileSet.getIncludeFilters();
+		List<PathFilter> excludes = fileSet.getExcludeFilters();
+		if (includes == null && excludes == null) {
+			return true;
+		}
+		int slash = relativeFile.lastIndexOf('/');
+		String fileName = slash < 0 ? relativeFile : relativeFile.substring(slash + 1);
+		if (includes != null) {
+			boolean found = false;
+			for (PathFilter include : includes) {
+				if (include.matches(relativeFile) || include.matches(fileName)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				getLog().debug(
+					"Skipping file \"" + relativeFile + "\"because it's not included in fileset \"" + fileSet + "\""
+				);
+				return false;
+			}
+		}
+		if (excludes != null) {
+			for (PathFilter exclude : excludes) {
+				if (exclude.matches(relativeFile) || exclude.matches(fileName)) {
+					getLog().debug(
+						"Skipping file \"" + relativeFile + "\"because it is excluded in fileset \"" + fileSet + "\""
+					);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Transforms a translation file as configured by its
+	 * {@link TranslationFileSet} and writes it to its target location.
+	 *
+	 * @param inputStream the {@link InputStream} to read the downloaded file
+	 *            from. It's closed when done.
+	 * @param parseResult the {@link ParseResult} for the file.
+	 * @param source the description of the downloaded file to use for
+	 *            logging.
+	 * @throws IOException If an error occurs during the operation. A
+	 *             configuration error is reported as an {@link IOException}
+	 *             with a {@link MojoExecutionException} as its cause.
+	 */
+	protected void deployFile(
+		@Nonnull InputStream inputStream,
+		@Nonnull ParseResult parseResult,
+		@Nonnull String source
+	) throws IOException {
+		TranslationFileSet fileSet = parseResult.getMatchInfo().getFileSet();
+		Path targetFile = fileSet.getLanguageFilesFolder().toPath().resolve(parseResult.getTargetFile());
+		Path targetFolder = targetFile.getParent();
+		if (targetFolder != null && !Files.exists(targetFolder)) {
+			getLog().info("Creating folder \"" + targetFolder + "\"");
+			Files.createDirectories(targetFolder);
+		}
+		getLog().info("Deploying file \"" + targetFile.toAbsolutePath() + "\" from \"" + source + "\"");
+
+		String commentHeader;
+		if (Boolean.TRUE.equals(fileSet.getAddComent())) {
+			if (isBlank(fileSet.getComment())) {
+				commentHeader = isBlank(comment) ? DEFAULT_COMMENT : comment;
+			} else {
+				commentHeader = fileSet.getComment();
+			}
+		} else {
+			commentHeader = null;
+		}
+		String currentLineSeparator = fileSet.getLineSeparator() != null ? fileSet.getLineSeparator() : lineSeparator;
+		if (currentLineSeparator != null) {
+			currentLineSeparator = currentLineSeparator.replace("\\r", "\r").replace("\\n", "\n");
+		}
+
+		if (fileSet.getType() == FileType.properties) {
+			OrderedProperties orderedProperties = Boolean.TRUE.equals(fileSet.getSortLines()) ?
+				new GroupSortedProperties() :
+				new FIFOProperties();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+				orderedProperties.load(reader);
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(targetFile, fileSet.getCharset())) {
+				orderedProperties.store(
+					writer,
+					commentHeader,
+					currentLineSeparator,
+					!Boolean.FALSE.equals(fileSet.getEscapeUnicode())
+				);
+			}
+		} else {
+			if (Boolean.TRUE.equals(fileSet.getSortLines())) {
+				throw new IOException("Invalid option", new MojoExecutionException(
+					"Option \"sortLines\" isn't supported for " + fileSet.getType() + " files"
+				));
+			}
+			if (Boolean.TRUE.equals(fileSet.getEscapeUnicode())) {
+				throw new IOException("Invalid option", new MojoExecutionException(
+					"Option \"escapeUnicode\" isn't supported for " + fileSet.getType() + " files"
+				));
+			}
+
+			if (
+				!fileSet.getCharset().equals(StandardCharsets.UTF_8) ||
+				Boolean.TRUE.equals(fileSet.getAddComent()) ||
+				currentLineSeparator != null
+			) {
+				// "Manual" copy
+				try (
+					BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+					BufferedWriter writer = Files.newBufferedWriter(targetFile, fileSet.getCharset());
+				) {
+					if (Boolean.TRUE.equals(fileSet.getAddComent())) {
+						if (fileSet.getType() == FileType.html || fileSet.getType() == FileType.xml) {
+							writer.write("<!-- ");
+							writer.write(commentHeader);
+							writer.write(" -->");
+						} else {
+							writer.write(fileSet.getCommentTag());
+							writer.write(" ");
+							writer.write(commentHeader);
+						}
+						OrderedProperties.writeNewLine(writer, currentLineSeparator);
+						OrderedProperties.writeNewLine(writer, currentLineSeparator);
+					}
+
+					for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+						writer.write(line);
+						OrderedProperties.writeNewLine(writer, currentLineSeparator);
+					}
+					writer.flush();
+				}
+			} else {
+				// Binary copy
+				try {
+					Files.copy(inputStream, targetFile, StandardCopyOption.REPLACE_EXISTING);
+				} finally {
+					inputStream.close();
+				}
+			}
+		}
+	}
+
 	@Nullable
 	private ParseResult parseFileName(@Nullable Path path, Set<MatchInfo> fileSetMatchInfos) throws MojoExecutionException, IOException {
 		if (path == null || !Files.isRegularFile(path)) {
@@ -328,6 +598,16 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 			return null;
 		}
 		String fileName = CrowdinFileSystem.formatPath(path.subpath(downloadFolderLength + 1, path.getNameCount()), false);
+		return parseFileName(crowdinCode, fileName, path.toAbsolutePath().toString(), fileSetMatchInfos);
+	}
+
+	@Nonnull
+	private ParseResult parseFileName(
+		@Nonnull String crowdinCode,
+		@Nonnull String fileName,
+		@Nonnull String source,
+		Set<MatchInfo> fileSetMatchInfos
+	) throws MojoExecutionException, IOException {
 		Matcher matcher = null;
 		MatchInfo matchedfileSetMatchInfo = null;
 
@@ -340,7 +620,7 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 			}
 		}
 		if (matcher == null || matchedfileSetMatchInfo == null) {
-			throw new IOException("Unable to match file \"" + path.toAbsolutePath() + "\" to any translation file set");
+			throw new IOException("Unable to match file \"" + source + "\" to any translation file set");
 		}
 
 		StringBuilder targetFileName = new StringBuilder();
@@ -432,7 +712,7 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 
 		}
 		if (targetFileName.length() == 0) {
-			throw new IOException("Resolved target filename for file \"" + path.toAbsolutePath() + "\" is blank");
+			throw new IOException("Resolved target filename for file \"" + source + "\" is blank");
 		}
 		return new ParseResult(Paths.get(targetFileName.toString()), matchedfileSetMatchInfo);
 	}
@@ -446,9 +726,27 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 			} catch (JDOMException e) {
 				throw new IOException("Could not parse XML document \"" + file + "\"", e);
 			}
+			deployStatusFiles(document, file.toString());
+		}
+	}
+
+	/**
+	 * Writes the configured status files from the specified translations
+	 * status {@link Document}.
+	 *
+	 * @param document the translations status {@link Document}.
+	 * @param source the description of the status document to use for
+	 *            logging.
+	 * @throws IOException If an error occurs during the operation. A
+	 *             configuration error is reported as an {@link IOException}
+	 *             with a {@link MojoExecutionException} as its cause.
+	 */
+	protected void deployStatusFiles(@Nonnull Document document, @Nonnull String source) throws IOException {
+		// Translations status
+		if (statusFiles != null && !statusFiles.isEmpty()) {
 			for (StatusFile fileSet : statusFiles) {
 
-				getLog().info("Deploying status file \"" + fileSet.getTargetFile() + "\" from \"" + file  + "\"");
+				getLog().info("Deploying status file \"" + fileSet.getTargetFile() + "\" from \"" + source  + "\"");
 
 				String commentHeader = null;
 				if (Boolean.TRUE.equals(fileSet.getAddComent())) {
@@ -543,51 +841,12 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 						xmlOut.output(outDocument, writer);
 					}
 				} else {
-					throw new IOException("Invalid file type \"" + fileSet.getType() + "\" for status file \"" + file + "\"");
+					throw new IOException("Invalid file type \"" + fileSet.getType() + "\" for status file \"" + source + "\"");
 				}
 			}
 		}
 	}
 
-	@Nullable
-	private static Pattern createFilterPattern(@Nullable String filter) {
-		if (isBlank(filter)) {
-			return null;
-		}
-		Matcher matcher = FILTER_DELIMITERS.matcher(filter);
-
-		StringBuilder sb = new StringBuilder(filter.length() * 2);
-		int next = 0;
-		String literal;
-		while (matcher.find()) {
-			literal = filter.substring(next, matcher.start());
-			if (!literal.isEmpty()) {
-				sb.append(Pattern.quote(literal));
-			}
-			switch (matcher.group()) {
-				case "?":
-					sb.append(".");
-					break;
-				case "*":
-					sb.append(".*");
-					break;
-				case "\\":
-					sb.append("/");
-					break;
-				default:
-					throw new AssertionError("Broken code in createFilterPattern");
-			}
-			next = matcher.end();
-		}
-
-		literal = filter.substring(next);
-		if (!literal.isEmpty()) {
-			sb.append(Pattern.quote(literal));
-		}
-
-		return Pattern.compile(sb.toString());
-	}
-
 	@Nonnull
 	private Set<MatchInfo> buildFileSetMatches() throws MojoExecutionException {
 		HashSet<MatchInfo> fileSetMatches = new HashSet<>();
@@ -662,15 +921,60 @@ public class DeployCrowdinMojo extends AbstractCrowdinMojo {
 		return placeholderContent;
 	}
 
-	private static void copyFile(
-		@Nonnull Path sourceFile,
-		@Nonnull Path destinationFile,
-		boolean overwrite
-	) throws IOException {
-		if (overwrite) {
-			Files.copy(sourceFile, destinationFile, StandardCopyOption.REPLACE_EXISTING);
-		} else {
-			Files.copy(sourceFile, destinationFile);
+	/**
+	 * A class holding a downloaded file to deploy and the result from parsing
+	 * it.
+	 *
+	 * @author Nadahar
+	 */
+	@Immutable
+	public static class DeployItem {
+
+		@Nonnull
+		private final Path source;
+
+		@Nonnull
+		private final ParseResult parseResult;
+
+		/**
+		 * Creates a new instance with the specified values.
+		 *
+		 * @param source the downloaded file.
+		 * @param parseResult the {@link ParseResult} for {@code source}.
+		 */
+		public DeployItem(@Nonnull Path source, @Nonnull ParseResult parseResult) {
+			this.source = source;
+			this.parseResult = parseResult;
+		}
+
+		/**
+		 * @return The downloaded file.
+		 */
+		@Nonnull
+		public Path getSource() {
+			return source;
+		}
+
+		/**
+		 * @return The {@link ParseResult}.
+		 */
+		@Nonnull
+		public ParseResult getParseResult() {
+			return parseResult;
+		}
+
+		/**
+		 * @return The absolute target file.
+		 */
+		@Nonnull
+		public Path getTargetFile() {
+			return parseResult.getMatchInfo().getFileSet().getLanguageFilesFolder().toPath()
+				.resolve(parseResult.getTargetFile()).toAbsolutePath().normalize();
+		}
+
+		@Override
+		public String toString() {
+			return "DeployItem [source=" + source + ", parseResult=" + parseResult + "]";
 		}
 	}
 
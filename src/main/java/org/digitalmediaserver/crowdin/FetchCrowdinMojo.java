@@ -26,16 +26,39 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.util.EntityUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.digitalmediaserver.crowdin.configuration.StatusFile;
 import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
+import org.digitalmediaserver.crowdin.tool.AsyncCrowdinAPI;
 import org.digitalmediaserver.crowdin.tool.CrowdinAPI;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem;
+import org.digitalmediaserver.crowdin.tool.FetchManifest;
+import org.digitalmediaserver.crowdin.tool.ProjectCache;
+import org.digitalmediaserver.crowdin.tool.RangeDownloader;
+import org.digitalmediaserver.crowdin.tool.RetryStrategy;
+import org.digitalmediaserver.crowdin.tool.StagingFolder;
+import org.digitalmediaserver.crowdin.tool.ZipExtractor;
 import org.jdom2.Document;
 import org.jdom2.output.XMLOutputter;
 
@@ -48,6 +71,23 @@ import org.jdom2.output.XMLOutputter;
  */
 public class FetchCrowdinMojo extends AbstractCrowdinMojo {
 
+	/**
+	 * The maximum time in milliseconds to wait for an unfinished status
+	 * download before the staging folder is discarded
+	 */
+	protected static final long STATUS_TERMINATION_TIMEOUT = 30000;
+
+	/** The manifest from the previous fetch */
+	@Nullable
+	protected FetchManifest previousManifest;
+
+	/** The files that were extracted during the last execution */
+	@Nullable
+	protected Set<String> changedFiles;
+
+	/** The number of files that were skipped during the last execution */
+	protected int unchangedFiles;
+
 	@Override
 	public void execute() throws MojoExecutionException {
 		initializeParameters();
@@ -68,68 +108,145 @@ public class FetchCrowdinMojo extends AbstractCrowdinMojo {
 			throw new MojoExecutionException("No filesets are defined");
 		}
 
-		cleanDownloadFolder();
+		previousManifest = loadManifest();
+		if (previousManifest != null) {
+			getLog().info("Comparing with the " + previousManifest.size() + " files from the previous fetch");
+		}
+		unchangedFiles = 0;
+		changedFiles = null;
 		String branch = getBranch();
 		Map<String, String> parameters = new HashMap<>();
 		if (branch != null) {
 			parameters.put("branch", branch);
 		}
 
-		getLog().info("Downloading translations from crowdin");
+		// Download to a staging folder that replaces the download folder on success
+		Path liveFolder = downloadFolderPath;
+		StagingFolder staging = null;
+		if (previousManifest == null && usesDownloadFolder()) {
+			try {
+				staging = StagingFolder.create(liveFolder, getLog());
+			} catch (IOException e) {
+				throw new MojoExecutionException(
+					"Could not create a staging folder for \"" + liveFolder.toAbsolutePath() + "\": " + e.getMessage(),
+					e
+				);
+			}
+			downloadFolderPath = staging.getFolder();
+		}
+
+		// The status request is independent of the archive, so run them concurrently
+		AsyncCrowdinAPI statusAPI = null;
+		Future<Void> statusFuture = null;
+		if (statusFiles != null && !statusFiles.isEmpty()) {
+			statusAPI = new AsyncCrowdinAPI(client, server, 1, getLog());
+			statusFuture = statusAPI.submit(new Callable<Void>() {
 
+				@Override
+				public Void call() throws MojoExecutionException {
+					downloadStatusFile();
+					return null;
+				}
+			});
+		}
 		try {
-			HttpResponse response = CrowdinAPI.requestPost(client, server, "download/all.zip", parameters, getLog());
-			int returnCode = response.getStatusLine().getStatusCode();
-			getLog().debug("Crowdin return code : " + returnCode);
-
-			if (returnCode == 200) {
-				int count = 0;
-				byte[] buf = new byte[1024];
-				try (
-					InputStream responseBodyAsStream = response.getEntity().getContent();
-					ZipInputStream zis = new ZipInputStream(responseBodyAsStream);
-				) {
-					ZipEntry entry;
-					while ((entry = zis.getNextEntry()) != null) {
-						if (entry.isDirectory()) {
-							getLog().debug("Creating folder \"" + entry.getName() + "\"");
-
-							Files.createDirectories(downloadFolderPath.resolve(entry.getName()));
-						} else {
-							getLog().debug("Writing \"" + entry.getName() + "\"");
-
-							Path path = downloadFolderPath.resolve(entry.getName());
-							try (OutputStream os = Files.newOutputStream(path)) {
-								while (zis.available() > 0) {
-									int read = zis.read(buf);
-									if (read != -1) {
-										os.write(buf, 0, read);
-									}
-								}
-							}
-							count++;
-						}
+			int count = downloadTranslations(parameters, branch);
+			if (count == 0 && unchangedFiles == 0) {
+				getLog().info("No translations available for this project!");
+			} else {
+				getLog().info("Successfully downloaded " + count + " files from crowdin");
+			}
+			if (unchangedFiles > 0) {
+				getLog().info("Skipped " + unchangedFiles + " files that haven't changed since the previous fetch");
+			}
+
+			if (statusFuture != null) {
+				try {
+					AsyncCrowdinAPI.get(statusFuture);
+				} catch (IOException e) {
+					if (e.getCause() instanceof MojoExecutionException) {
+						throw (MojoExecutionException) e.getCause();
 					}
+					throw new MojoExecutionException("An error occurred while getting the crowdin status: " + e.getMessage(), e);
+				}
+			}
+			if (staging != null) {
+				try {
+					staging.commit();
 				} catch (IOException e) {
-					throw new MojoExecutionException("Failed to download translation files: " + e.getMessage(), e);
+					throw new MojoExecutionException(
+						"Could not replace \"" + liveFolder.toAbsolutePath() + "\": " + e.getMessage(),
+						e
+					);
 				}
-				EntityUtils.consumeQuietly(response.getEntity());
+				staging = null;
+			}
+		} finally {
+			if (statusAPI != null) {
+				statusFuture.cancel(true);
+				if (!statusAPI.close(STATUS_TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					getLog().debug("Timed out while waiting for the crowdin status download to stop");
+				}
+			}
+			downloadFolderPath = liveFolder;
+			if (staging != null) {
+				staging.discard();
+			}
+		}
+	}
 
-				if (count == 0) {
-					getLog().info("No translations available for this project!");
+	/**
+	 * Checks whether this {@link org.apache.maven.plugin.Mojo} stores files in
+	 * {@link AbstractCrowdinMojo#downloadFolder}. If it does, the files are
+	 * downloaded to a {@link StagingFolder} that replaces the download folder
+	 * when the download has succeeded, unless unchanged files are skipped.
+	 *
+	 * @return {@code true} if the download folder is used, {@code false}
+	 *         otherwise.
+	 */
+	protected boolean usesDownloadFolder() {
+		return true;
+	}
+
+	/**
+	 * Downloads the translations archive or archives and extracts them to
+	 * {@link AbstractCrowdinMojo#downloadFolder}.
+	 *
+	 * @param parameters the API parameters to use.
+	 * @param branch the branch name or {@code null}.
+	 * @return The number of extracted files.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected int downloadTranslations(Map<String, String> parameters, String branch) throws MojoExecutionException {
+		try {
+			List<String> codes = getLanguages();
+			if (codes.isEmpty()) {
+				getLog().info("Downloading translations from crowdin");
+				if (downloadSegments > 0) {
+					Path archive = downloadArchive("all", parameters, branch);
+					try {
+						return extractArchives(Collections.singletonList(archive));
+					} catch (IOException e) {
+						throw new MojoExecutionException("Failed to download translation files: " + e.getMessage(), e);
+					} finally {
+						Files.deleteIfExists(archive);
+					}
 				} else {
-					getLog().info("Successfully downloaded " + count + " files from crowdin");
-				}
+					try {
+						return readArchive("all", parameters, branch, new ArchiveReader<Integer>() {
 
-				downloadStatusFile();
-			} else if (returnCode == 404) {
-				throw new MojoExecutionException(
-					"Could not find any files in branch \"" + (branch != null ? branch : rootBranch) + "\" on crowdin"
-				);
+							@Override
+							public Integer read(HttpResponse response) throws IOException, MojoExecutionException {
+								return Integer.valueOf(extract(response));
+							}
+						}).intValue();
+					} catch (IOException e) {
+						throw new MojoExecutionException("Failed to download translation files: " + e.getMessage(), e);
+					}
+				}
 			} else {
-				throw new MojoExecutionException(
-					"Failed to get translations from crowdin with return code " + Integer.toString(returnCode)
-				);
+				getLog().info("Downloading translations for " + codes + " from crowdin");
+				return downloadLanguages(codes, parameters, branch);
 			}
 		} catch (IOException e) {
 			throw new MojoExecutionException("Failed to call API: " + e.getMessage(), e);
@@ -137,23 +254,469 @@ public class FetchCrowdinMojo extends AbstractCrowdinMojo {
 	}
 
 	/**
-	 * Downloads the translations status file to the intermediary
+	 * Requests a translations archive from crowdin.
+	 *
+	 * @param packageName the crowdin language code or {@code "all"} for all
+	 *            languages.
+	 * @param parameters the API parameters to use.
+	 * @param branch the branch name or {@code null}.
+	 * @return The successful {@link HttpResponse}. The caller is responsible
+	 *         for consuming its entity.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If crowdin didn't return the archive.
+	 */
+	protected HttpResponse requestArchive(
+		String packageName,
+		Map<String, String> parameters,
+		String branch
+	) throws IOException, MojoExecutionException {
+		HttpResponse response = CrowdinAPI.requestPost(
+			client,
+			server,
+			"download/" + packageName + ".zip",
+			parameters,
+			getLog()
+		);
+		int returnCode = response.getStatusLine().getStatusCode();
+		getLog().debug("Crowdin return code : " + returnCode);
+		if (returnCode == 200) {
+			return response;
+		}
+		EntityUtils.consumeQuietly(response.getEntity());
+		throw createArchiveException(returnCode, packageName, branch);
+	}
+
+	/**
+	 * Requests a translations archive from crowdin and reads it with the
+	 * specified {@link ArchiveReader}. If the connection fails while the
+	 * archive is being read, it's requested and read again according to
+	 * {@link AbstractCrowdinMojo#maxRetries}.
+	 *
+	 * @param <T> the result type.
+	 * @param packageName the crowdin language code or {@code "all"} for all
+	 *            languages.
+	 * @param parameters the API parameters to use.
+	 * @param branch the branch name or {@code null}.
+	 * @param reader the {@link ArchiveReader} to use.
+	 * @return The result of {@code reader}.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If crowdin didn't return the archive or
+	 *             {@code reader} failed.
+	 */
+	protected <T> T readArchive(
+		final String packageName,
+		final Map<String, String> parameters,
+		final String branch,
+		final ArchiveReader<T> reader
+	) throws IOException, MojoExecutionException {
+		return createRetryStrategy().execute(
+			"download/" + packageName + ".zip",
+			new RetryStrategy.BodyReader<T, MojoExecutionException>() {
+
+				@Override
+				public HttpResponse request() throws IOException, MojoExecutionException {
+					return requestArchive(packageName, parameters, branch);
+				}
+
+				@Override
+				public T read(HttpResponse response) throws IOException, MojoExecutionException {
+					return reader.read(response);
+				}
+			}
+		);
+	}
+
+	/**
+	 * Downloads a translations archive from crowdin using a
+	 * {@link RangeDownloader} with
+	 * {@link AbstractCrowdinMojo#downloadSegments} segments. The archive is
+	 * stored in {@link AbstractCrowdinMojo#projectCacheFolder}, so that a
+	 * failed download can be resumed by the next fetch.
+	 *
+	 * @param packageName the crowdin language code or {@code "all"} for all
+	 *            languages.
+	 * @param parameters the API parameters to use.
+	 * @param branch the branch name or {@code null}.
+	 * @return The {@link Path} of the downloaded archive, which must be
+	 *         deleted by the caller.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If crowdin didn't return the archive.
+	 */
+	protected Path downloadArchive(
+		String packageName,
+		Map<String, String> parameters,
+		String branch
+	) throws IOException, MojoExecutionException {
+		Path folder = projectCacheFolder != null ?
+			projectCacheFolder.toPath().resolve("downloads") :
+			downloadFolderPath.toAbsolutePath().resolveSibling("crowdin-downloads");
+		Path target = folder.resolve(ProjectCache.encode(server.getUsername())).resolve(
+			ProjectCache.encode(branch == null ? "-" : branch) + "-" + packageName + ".zip"
+		);
+		RangeDownloader downloader = new RangeDownloader(
+			client,
+			server,
+			"download/" + packageName + ".zip",
+			parameters,
+			downloadSegments,
+			Math.max(maxRetries, 0) + 1,
+			retryDelay,
+			getLog()
+		);
+		try {
+			downloader.download(target);
+		} catch (HttpResponseException e) {
+			throw createArchiveException(e.getStatusCode(), packageName, branch);
+		}
+		return target;
+	}
+
+	/**
+	 * Creates the {@link MojoExecutionException} to throw when crowdin
+	 * doesn't return a translations archive.
+	 *
+	 * @param returnCode the HTTP status code.
+	 * @param packageName the crowdin language code or {@code "all"} for all
+	 *            languages.
+	 * @param branch the branch name or {@code null}.
+	 * @return The new {@link MojoExecutionException}.
+	 */
+	protected MojoExecutionException createArchiveException(int returnCode, String packageName, String branch) {
+		if (returnCode == 404) {
+			return new MojoExecutionException(
+				"Could not find any " + ("all".equals(packageName) ? "files" : "\"" + packageName + "\" translations") +
+				" in branch \"" + (branch != null ? branch : rootBranch) + "\" on crowdin"
+			);
+		}
+		return new MojoExecutionException(
+			"Failed to get translations from crowdin with return code " + Integer.toString(returnCode)
+		);
+	}
+
+	/**
+	 * Downloads the translations archives for the specified languages
+	 * concurrently and merges them into
+	 * {@link AbstractCrowdinMojo#downloadFolder}. The archives use the same
+	 * layout as the archive for all languages, so they are simply extracted
+	 * to the same folder once all of them have been downloaded.
+	 *
+	 * @param codes the crowdin language codes.
+	 * @param parameters the API parameters to use.
+	 * @param branch the branch name or {@code null}.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs while calling the API.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected int downloadLanguages(
+		List<String> codes,
+		final Map<String, String> parameters,
+		final String branch
+	) throws IOException, MojoExecutionException {
+		List<Path> archives = new ArrayList<>(codes.size());
+		try {
+			IOException exception = null;
+			try (AsyncCrowdinAPI api = createAsyncAPI()) {
+				List<Future<Path>> futures = new ArrayList<>(codes.size());
+				for (final String code : codes) {
+					futures.add(api.submit(new Callable<Path>() {
+
+						@Override
+						public Path call() throws IOException, MojoExecutionException {
+							if (downloadSegments > 0) {
+								return downloadArchive(code, parameters, branch);
+							}
+							return readArchive(code, parameters, branch, new ArchiveReader<Path>() {
+
+								@Override
+								public Path read(HttpResponse response) throws IOException {
+									return spool(response);
+								}
+							});
+						}
+					}));
+				}
+
+				// Wait for all, reporting the first failure in submission order
+				for (Future<Path> future : futures) {
+					try {
+						archives.add(AsyncCrowdinAPI.get(future));
+					} catch (IOException e) {
+						if (exception == null) {
+							exception = e;
+						}
+					}
+				}
+			}
+			if (exception != null) {
+				if (exception.getCause() instanceof MojoExecutionException) {
+					throw (MojoExecutionException) exception.getCause();
+				}
+				throw exception;
+			}
+
+			try {
+				return extractArchives(archives);
+			} catch (IOException e) {
+				throw new MojoExecutionException("Failed to download translation files: " + e.getMessage(), e);
+			}
+		} finally {
+			for (Path archive : archives) {
+				Files.deleteIfExists(archive);
+			}
+		}
+	}
+
+	/**
+	 * Extracts the specified translations archives to
 	 * {@link AbstractCrowdinMojo#downloadFolder}.
 	 *
+	 * @param archives the archive files.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If a configuration error is encountered.
+	 */
+	protected int extractArchives(List<Path> archives) throws IOException, MojoExecutionException {
+		if (skipUnchanged) {
+			return extractChanged(archives);
+		}
+		int count = 0;
+		for (Path archive : archives) {
+			count += ZipExtractor.extract(archive, downloadFolderPath, Math.max(extractThreads, 1), getLog());
+		}
+		return count;
+	}
+
+	/**
+	 * Extracts the translations archive contained in the specified
+	 * {@link HttpResponse} to {@link AbstractCrowdinMojo#downloadFolder}. If
+	 * {@link AbstractCrowdinMojo#extractThreads} is greater than {@code 1},
+	 * the archive is spooled to a temporary file and extracted in parallel.
+	 * Otherwise it's extracted while it's being downloaded.
+	 *
+	 * @param response the {@link HttpResponse} whose entity is the archive.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If a configuration error is encountered.
+	 */
+	protected int extract(HttpResponse response) throws IOException, MojoExecutionException {
+		if (skipUnchanged) {
+			return extractChanged(response);
+		}
+		if (extractThreads <= 1) {
+			try (InputStream responseBodyAsStream = response.getEntity().getContent()) {
+				return new ZipExtractor(downloadFolderPath, getLog()).extract(responseBodyAsStream);
+			}
+		}
+
+		Path tempFile = spool(response);
+		try {
+			getLog().debug("Extracting translations using " + extractThreads + " threads");
+			return ZipExtractor.extract(tempFile, downloadFolderPath, extractThreads, getLog());
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * Extracts the files in the translations archive contained in the
+	 * specified {@link HttpResponse} that differ from {@link #previousManifest}
+	 * to {@link AbstractCrowdinMojo#downloadFolder}. The CRC-32 and size from
+	 * the central directory of the archive is compared with the manifest, so
+	 * the archive is spooled to a temporary file first.
+	 *
+	 * @param response the {@link HttpResponse} whose entity is the archive.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 * @see #extractChanged(List)
+	 */
+	protected int extractChanged(HttpResponse response) throws IOException {
+		Path tempFile = spool(response);
+		try {
+			return extractChanged(Collections.singletonList(tempFile));
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * Extracts the files in the specified translations archives that differ
+	 * from {@link #previousManifest} to
+	 * {@link AbstractCrowdinMojo#downloadFolder}. Files from the previous fetch
+	 * that are no longer in any of the archives are deleted.
+	 * <p>
+	 * The new manifest is stored in the download folder when all files have
+	 * been extracted. The changed files are added to the stored change set,
+	 * which is cleared by a successful deploy, so that changes fetched before
+	 * a failed or skipped deploy are deployed by the next one.
+	 *
+	 * @param archives the archive files.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected int extractChanged(List<Path> archives) throws IOException {
+		ZipExtractor resolver = new ZipExtractor(downloadFolderPath, null);
+		FetchManifest manifest = new FetchManifest();
+		Map<Path, Set<String>> entryNames = new LinkedHashMap<>();
+		Set<String> changed = new LinkedHashSet<>();
+		for (Path archive : archives) {
+			Set<String> archiveEntryNames = new HashSet<>();
+			try (ZipFile zip = new ZipFile(archive.toFile())) {
+				for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.isDirectory()) {
+						continue;
+					}
+					Path file = resolver.resolveEntry(entry.getName());
+					String path = CrowdinFileSystem.formatPath(resolver.getTargetFolder().relativize(file), false);
+					manifest.put(path, entry.getCrc(), entry.getSize());
+					if (
+						previousManifest != null &&
+						previousManifest.matches(path, entry.getCrc(), entry.getSize()) &&
+						Files.isRegularFile(file) &&
+						Files.size(file) == entry.getSize()
+					) {
+						unchangedFiles++;
+					} else {
+						archiveEntryNames.add(entry.getName());
+						changed.add(path);
+					}
+				}
+			}
+			entryNames.put(archive, archiveEntryNames);
+		}
+
+		if (previousManifest != null) {
+			for (String path : previousManifest.getPaths()) {
+				if (manifest.get(path) == null) {
+					getLog().debug("Deleting \"" + path + "\" which is no longer available");
+					Files.deleteIfExists(resolver.resolveEntry(path));
+				}
+			}
+		}
+
+		int count = 0;
+		for (Entry<Path, Set<String>> entry : entryNames.entrySet()) {
+			if (!entry.getValue().isEmpty()) {
+				count += ZipExtractor.extract(
+					entry.getKey(),
+					downloadFolderPath,
+					entry.getValue(),
+					Math.max(extractThreads, 1),
+					getLog()
+				);
+			}
+		}
+		Set<String> pendingChanges = FetchManifest.loadChanges(downloadFolderPath, getLog());
+		if (pendingChanges == null) {
+			pendingChanges = new HashSet<>();
+		} else {
+			// Files that have disappeared since can't be deployed
+			for (Iterator<String> iterator = pendingChanges.iterator(); iterator.hasNext();) {
+				if (manifest.get(iterator.next()) == null) {
+					iterator.remove();
+				}
+			}
+		}
+		pendingChanges.addAll(changed);
+		manifest.store(downloadFolderPath);
+		FetchManifest.storeChanges(downloadFolderPath, pendingChanges);
+		changedFiles = Collections.unmodifiableSet(changed);
+		return count;
+	}
+
+	/**
+	 * Writes the entity of the specified {@link HttpResponse} to a temporary
+	 * file.
+	 *
+	 * @param response the {@link HttpResponse}.
+	 * @return The {@link Path} to the temporary file, which must be deleted by
+	 *         the caller.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected Path spool(HttpResponse response) throws IOException {
+		Path tempFile = Files.createTempFile("crowdin", ".zip");
+		try (
+			InputStream responseBodyAsStream = response.getEntity().getContent();
+			OutputStream os = Files.newOutputStream(tempFile)
+		) {
+			ZipExtractor.copy(responseBodyAsStream, os, new byte[ZipExtractor.BUFFER_SIZE]);
+		} catch (IOException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+		return tempFile;
+	}
+
+	/**
+	 * Loads the {@link FetchManifest} from the previous fetch if
+	 * {@link AbstractCrowdinMojo#skipUnchanged} is {@code true}. The stored
+	 * manifest is deleted, so that an interrupted fetch leads to a full fetch
+	 * the next time.
+	 *
+	 * @return The {@link FetchManifest} or {@code null}.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	@Nullable
+	protected FetchManifest loadManifest() throws MojoExecutionException {
+		if (!skipUnchanged || !Files.isDirectory(downloadFolderPath)) {
+			return null;
+		}
+		FetchManifest result = FetchManifest.load(downloadFolderPath, getLog());
+		try {
+			FetchManifest.delete(downloadFolderPath);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Failed to delete the fetch manifest: " + e.getMessage(), e);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The relative paths of the files that were extracted by the last
+	 *         execution because they were new or had changed, or {@code null}
+	 *         if {@link AbstractCrowdinMojo#skipUnchanged} is {@code false}.
+	 */
+	@Nullable
+	public Set<String> getChangedFiles() {
+		return changedFiles;
+	}
+
+	/**
+	 * Downloads the translations status file to the intermediary
+	 * {@link AbstractCrowdinMojo#downloadFolder}. This is called by a worker
+	 * thread while the translations archive is being downloaded and
+	 * extracted.
+	 *
 	 * @throws MojoExecutionException If an error occurs during the operation.
 	 */
 	protected void downloadStatusFile() throws MojoExecutionException {
 		if (statusFiles == null || statusFiles.isEmpty()) {
 			return;
 		}
+		writeStatusDocument(requestStatusDocument());
+	}
 
-		Document document;
+	/**
+	 * Requests the translations status from crowdin.
+	 *
+	 * @return The translations status {@link Document}.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected Document requestStatusDocument() throws MojoExecutionException {
 		try {
-			document = CrowdinAPI.requestPostDocument(client, server, "status", null, null, true, getLog());
+			return CrowdinAPI.requestPostDocument(client, server, "status", null, null, true, getLog());
 		} catch (IOException e) {
 			throw new MojoExecutionException("An error occurred while getting the crowdin status: " + e.getMessage(), e);
 		}
+	}
 
+	/**
+	 * Writes the translations status {@link Document} to the intermediary
+	 * {@link AbstractCrowdinMojo#downloadFolder}.
+	 *
+	 * @param document the translations status {@link Document}.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected void writeStatusDocument(Document document) throws MojoExecutionException {
 		XMLOutputter xmlOut = new XMLOutputter();
 		Path statusFile = downloadFolderPath.resolve(STATUS_DOWNLOAD_FILENAME);
 		getLog().info("Writing translations status to \"" + statusFile + "\"");
@@ -163,4 +726,25 @@ public class FetchCrowdinMojo extends AbstractCrowdinMojo {
 			throw new MojoExecutionException("Failed to write file \"" + statusFile + "\": " + e.getMessage(), e);
 		}
 	}
+
+	/**
+	 * Reads a translations archive for
+	 * {@link FetchCrowdinMojo#readArchive(String, Map, String, ArchiveReader)}.
+	 *
+	 * @param <T> the result type.
+	 */
+	protected interface ArchiveReader<T> {
+
+		/**
+		 * Reads the translations archive.
+		 *
+		 * @param response the {@link HttpResponse} whose entity is the
+		 *            archive.
+		 * @return The result.
+		 * @throws IOException If an error occurs during the operation.
+		 * @throws MojoExecutionException If an error occurs during the
+		 *             operation.
+		 */
+		T read(HttpResponse response) throws IOException, MojoExecutionException;
+	}
 }
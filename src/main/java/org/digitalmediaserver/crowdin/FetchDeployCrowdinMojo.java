@@ -0,0 +1,148 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin;
+
+import static org.digitalmediaserver.crowdin.tool.Constants.STATUS_DOWNLOAD_FILENAME;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.http.HttpResponse;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.digitalmediaserver.crowdin.tool.FetchManifest;
+import org.digitalmediaserver.crowdin.tool.ZipExtractor;
+import org.jdom2.Document;
+
+
+/**
+ * Downloads the translations files and deploys them directly to their
+ * configured location, without storing them in the intermediary
+ * {@link AbstractCrowdinMojo#downloadFolder} first. This combines
+ * {@link FetchCrowdinMojo} and {@link DeployCrowdinMojo} in a single pass.
+ *
+ * @goal fetch-deploy
+ */
+public class FetchDeployCrowdinMojo extends FetchCrowdinMojo {
+
+	/**
+	 * Whether to also store the downloaded files in the intermediary
+	 * {@code downloadFolder}, for debugging purposes.
+	 *
+	 * @parameter property="keepDownload" default-value="false"
+	 */
+	protected boolean keepDownload;
+
+	/**
+	 * Sets whether to also store the downloaded files in the intermediary
+	 * {@link AbstractCrowdinMojo#downloadFolder}.
+	 *
+	 * @param keepDownload {@code true} to keep the downloaded files,
+	 *            {@code false} otherwise.
+	 */
+	protected void setKeepDownload(boolean keepDownload) {
+		this.keepDownload = keepDownload;
+	}
+
+	@Override
+	protected boolean usesDownloadFolder() {
+		return keepDownload;
+	}
+
+	@Override
+	protected FetchManifest loadManifest() throws MojoExecutionException {
+		return null;
+	}
+
+	@Override
+	protected int extract(HttpResponse response) throws IOException, MojoExecutionException {
+		try (InputStream responseBodyAsStream = response.getEntity().getContent()) {
+			return deploy(responseBodyAsStream);
+		}
+	}
+
+	@Override
+	protected int extractArchives(List<Path> archives) throws IOException, MojoExecutionException {
+		int count = 0;
+		for (Path archive : archives) {
+			try (InputStream is = Files.newInputStream(archive)) {
+				count += deploy(is);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Deploys the translations archive from the specified {@link InputStream}.
+	 *
+	 * @param inputStream the {@link InputStream} containing the archive.
+	 * @return The number of deployed files.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws MojoExecutionException If a configuration error is encountered.
+	 */
+	protected int deploy(InputStream inputStream) throws IOException, MojoExecutionException {
+		try {
+			return createDeployMojo().deployArchive(
+				inputStream,
+				keepDownload ? new ZipExtractor(downloadFolderPath, getLog()) : null
+			);
+		} catch (IOException e) {
+			if (e.getCause() instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	protected void downloadStatusFile() throws MojoExecutionException {
+		if (statusFiles == null || statusFiles.isEmpty()) {
+			return;
+		}
+		Document document = requestStatusDocument();
+		if (keepDownload) {
+			writeStatusDocument(document);
+		}
+		try {
+			createDeployMojo().deployStatusFiles(document, STATUS_DOWNLOAD_FILENAME);
+		} catch (IOException e) {
+			if (e.getCause() instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e.getCause();
+			}
+			throw new MojoExecutionException("An I/O error occurred while deploying translations: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Creates a {@link DeployCrowdinMojo} with the same configuration as this
+	 * instance.
+	 *
+	 * @return The new {@link DeployCrowdinMojo}.
+	 */
+	protected DeployCrowdinMojo createDeployMojo() {
+		DeployCrowdinMojo deploy = new DeployCrowdinMojo();
+		deploy.setDownloadFolder(downloadFolderPath);
+		deploy.setTranslationFileSets(translationFileSets);
+		deploy.setStatusFiles(statusFiles);
+		deploy.comment = comment;
+		deploy.lineSeparator = lineSeparator;
+		deploy.setLog(getLog());
+		return deploy;
+	}
+}
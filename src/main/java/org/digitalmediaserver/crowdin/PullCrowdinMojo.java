@@ -32,6 +32,24 @@ import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
  */
 public class PullCrowdinMojo extends AbstractCrowdinMojo {
 
+	/**
+	 * Whether to deploy the downloaded files directly to their configured
+	 * location instead of storing them in the intermediary
+	 * {@code downloadFolder} first. See {@link FetchDeployCrowdinMojo}.
+	 *
+	 * @parameter property="pipeline" default-value="false"
+	 */
+	protected boolean pipeline;
+
+	/**
+	 * Whether to also store the downloaded files in the intermediary
+	 * {@code downloadFolder} when {@link #pipeline} is {@code true}, for
+	 * debugging purposes.
+	 *
+	 * @parameter property="keepDownload" default-value="false"
+	 */
+	protected boolean keepDownload;
+
 	@Override
 	public void execute() throws MojoExecutionException {
 		initializeParameters();
@@ -49,30 +67,69 @@ public class PullCrowdinMojo extends AbstractCrowdinMojo {
 		build.setRootBranch(rootBranch);
 		build.setServer(server);
 		build.setClient(client);
+		build.setProjectCache(projectCache);
+		build.setMavenSession(getMavenSession());
+		build.setWaitForBuild(waitForBuild);
+		build.setBuildTimeout(buildTimeout);
+		build.setBuildPolicy(buildPolicy);
+		build.setBuildStaleAfter(buildStaleAfter);
+		build.setProjectCacheFolder(projectCacheFolder);
 		build.setLog(getLog());
 		build.doExecute();
 
-		getLog().debug("Executing fetch");
-		FetchCrowdinMojo fetch = new FetchCrowdinMojo();
+		if (pipeline) {
+			getLog().debug("Executing fetch and deploy");
+			FetchDeployCrowdinMojo fetchDeploy = new FetchDeployCrowdinMojo();
+			configureFetch(fetchDeploy);
+			fetchDeploy.setKeepDownload(keepDownload);
+			fetchDeploy.comment = comment;
+			fetchDeploy.lineSeparator = lineSeparator;
+			fetchDeploy.doExecute();
+		} else {
+			getLog().debug("Executing fetch");
+			FetchCrowdinMojo fetch = new FetchCrowdinMojo();
+			configureFetch(fetch);
+			fetch.doExecute();
+
+			getLog().debug("Executing deploy");
+			DeployCrowdinMojo deploy = new DeployCrowdinMojo();
+			deploy.setDownloadFolder(downloadFolderPath);
+			deploy.setTranslationFileSets(translationFileSets);
+			deploy.setStatusFiles(statusFiles);
+			deploy.setSkipUnchanged(skipUnchanged);
+			deploy.setDeployThreads(deployThreads);
+			deploy.setLog(getLog());
+			deploy.execute();
+		}
+
+		getLog().info("Pull sequence completed");
+	}
+
+	/**
+	 * Configures a {@link FetchCrowdinMojo} instance using the configuration
+	 * of this instance.
+	 *
+	 * @param fetch the {@link FetchCrowdinMojo} to configure.
+	 */
+	protected void configureFetch(FetchCrowdinMojo fetch) {
 		fetch.setCrowdinServerId(crowdinServerId);
 		fetch.setDownloadFolder(downloadFolderPath);
+		fetch.setExtractThreads(extractThreads);
+		fetch.setSkipUnchanged(skipUnchanged);
+		fetch.setLanguages(languages);
+		fetch.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+		fetch.setDownloadSegments(downloadSegments);
+		fetch.setMaxRetries(maxRetries);
+		fetch.setRetryDelay(retryDelay);
+		fetch.setProjectCacheFolder(projectCacheFolder);
 		fetch.setProject(project);
 		fetch.setRootBranch(rootBranch);
 		fetch.setServer(server);
 		fetch.setClient(client);
+		fetch.setProjectCache(projectCache);
+		fetch.setMavenSession(getMavenSession());
 		fetch.setTranslationFileSets(translationFileSets);
 		fetch.setStatusFiles(statusFiles);
 		fetch.setLog(getLog());
-		fetch.doExecute();
-
-		getLog().debug("Executing deploy");
-		DeployCrowdinMojo deploy = new DeployCrowdinMojo();
-		deploy.setDownloadFolder(downloadFolderPath);
-		deploy.setTranslationFileSets(translationFileSets);
-		deploy.setStatusFiles(statusFiles);
-		deploy.setLog(getLog());
-		deploy.execute();
-
-		getLog().info("Pull sequence completed");
 	}
 }
@@ -18,17 +18,30 @@
  */
 package org.digitalmediaserver.crowdin;
 
+import static org.digitalmediaserver.crowdin.tool.Constants.MAX_FILES_PER_REQUEST;
 import static org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.digitalmediaserver.crowdin.configuration.FileType;
 import org.digitalmediaserver.crowdin.configuration.UpdateOption;
 import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
+import org.digitalmediaserver.crowdin.tool.AsyncCrowdinAPI;
+import org.digitalmediaserver.crowdin.tool.Constants;
 import org.digitalmediaserver.crowdin.tool.CrowdinAPI;
-import org.jdom2.Document;
-import org.jdom2.Element;
+import org.digitalmediaserver.crowdin.tool.CrowdinItem;
+import org.digitalmediaserver.crowdin.tool.CrowdinProject;
+import org.digitalmediaserver.crowdin.tool.PushManifest;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 
@@ -87,6 +100,47 @@ public class PushCrowdinMojo extends AbstractCrowdinMojo {
 	 */
 	protected UpdateOption updateOption;
 
+	/**
+	 * Whether to request the project information from crowdin after creating
+	 * folders, to verify that they were actually created. Created folders are
+	 * otherwise only added to the local copy of the crowdin file tree.
+	 *
+	 * @parameter property="verifyFolders" default-value="false"
+	 */
+	protected boolean verifyFolders;
+
+	/**
+	 * The maximum number of upload requests to run concurrently. Folders are
+	 * always created before any files are uploaded. If greater than
+	 * {@code 1}, a failed upload doesn't stop the others and the results are
+	 * reported for each fileset.
+	 *
+	 * @parameter property="pushThreads" default-value="1"
+	 */
+	protected int pushThreads;
+
+	/**
+	 * Whether to only upload files that have changed since they were last
+	 * pushed. The SHA-256 hash of each successfully uploaded file is stored
+	 * in {@link #projectCacheFolder} for each project, branch and crowdin
+	 * path, and files that exist on crowdin with an unchanged hash aren't
+	 * uploaded again. Changing the title, export pattern or
+	 * "{@code escape_quotes}" value of a fileset also counts as a change.
+	 *
+	 * @parameter property="pushChangedOnly" default-value="false"
+	 */
+	protected boolean pushChangedOnly;
+
+	/**
+	 * Whether to upload all files regardless of {@link #pushChangedOnly}.
+	 *
+	 * @parameter property="force" default-value="false"
+	 */
+	protected boolean force;
+
+	/** The {@link PushManifest} or {@code null} */
+	protected PushManifest pushManifest;
+
 	@Override
 	@SuppressFBWarnings({"NP_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD", "UWF_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD"})
 	public void execute() throws MojoExecutionException {
@@ -105,17 +159,18 @@ public class PushCrowdinMojo extends AbstractCrowdinMojo {
 		createClient();
 		TranslationFileSet.initialize(translationFileSets);
 
-		// Retrieve project information
-		getLog().info("Retrieving crowdin project information");
-		Document projectDetails;
+		// Retrieve project information, pruned to the relevant branch
+		String gitBranch = getGitBranch();
+		String infoBranch = gitBranch.equals(rootBranch) ? null : gitBranch;
+		CrowdinProject projectInfo;
 		try {
-			projectDetails = CrowdinAPI.requestPostDocument(client, server, "info", null, null, true, getLog());
+			projectInfo = getProjectInfo(infoBranch, true);
 		} catch (IOException e) {
 			throw new MojoExecutionException("An error occurred while getting crowdin information: " + e.getMessage(), e);
 		}
 
-		String crowdinProjectName = projectDetails.getRootElement().getChild("details").getChild("name").getText();
-		if (!crowdinProjectName.equals(projectName)) {
+		String crowdinProjectName = projectInfo.getName();
+		if (!projectName.equals(crowdinProjectName)) {
 			throw new MojoExecutionException(
 				"crowdin project name (" + crowdinProjectName +
 				") differs from the \"projectName\" parameter (" + projectName +
@@ -123,117 +178,279 @@ public class PushCrowdinMojo extends AbstractCrowdinMojo {
 			);
 		}
 
-		String branch = getBranch(true, projectDetails);
+		String branch = getBranch(true, projectInfo);
 
-		// Update project information in case the branch was created in the
-		// previous step
-		if (branch != null && !containsBranch(projectDetails.getRootElement().getChild("files"), branch, getLog())) {
+		// Update project information if the branch was created in the previous
+		// step but couldn't be added to the file tree
+		if (branch != null && !containsBranch(projectInfo.getRoot(), branch, getLog())) {
 			try {
-				projectDetails = CrowdinAPI.requestPostDocument(client, server, "info", null, null, true, getLog());
+				projectInfo = getProjectInfo(branch, true);
 			} catch (IOException e) {
 				throw new MojoExecutionException("An error occurred while getting crowdin information: " + e.getMessage(), e);
 			}
 		}
 
 		// Get crowdin files
-		Element filesElement;
+		CrowdinItem filesItem;
 		try {
-			filesElement = CrowdinAPI.getFiles(client, server, branch, projectDetails, getLog());
+			filesItem = CrowdinAPI.getFiles(client, server, branch, projectInfo, getLog());
 		} catch (IOException e) {
 			throw new MojoExecutionException("An error occurred while getting crowdin files: " + e.getMessage(), e);
 		}
 
-		// Set values
+		// Create all missing folders up front
+		List<String> pushFolders = new ArrayList<String>();
 		for (TranslationFileSet fileSet : translationFileSets) {
-			File pushFile = new File(fileSet.getLanguageFilesFolder(), fileSet.getBaseFileName());
-			if (pushFile.exists()) {
+			if (new File(fileSet.getLanguageFilesFolder(), fileSet.getBaseFileName()).exists()) {
 				String pushFolder = getPushFolder(fileSet, true);
-				if (!isBlank(pushFolder) && !containsFolder(filesElement, pushFolder, getLog())) {
-					try {
-						createFolders(client, server, filesElement, pushFolder, getLog());
-					} catch (IOException e) {
-						throw new MojoExecutionException(
-							"An error occurred while creating folder \"" + pushFolder + "\" on crowdin: " + e.getMessage(),
-							e
-						);
-					}
+				if (!isBlank(pushFolder)) {
+					pushFolders.add(pushFolder);
 				}
+			}
+		}
+		if (!pushFolders.isEmpty()) {
+			try (AsyncCrowdinAPI api = createAsyncAPI()) {
+				createFolders(api, filesItem, pushFolders, verifyFolders, getLog());
+			} catch (IOException e) {
+				throw new MojoExecutionException("An error occurred while creating folders on crowdin: " + e.getMessage(), e);
+			}
+		}
 
-				Map<String, File> fileMap = new HashMap<String, File>();
-				Map<String, String> titleMap = new HashMap<String, String>();
-				Map<String, String> patternMap = new HashMap<String, String>();
+		// Upload the files, grouped into as few requests as possible
+		if (projectCacheFolder != null) {
+			pushManifest = PushManifest.load(projectCacheFolder.toPath(), server.getUsername(), branch, getLog());
+		}
+		try {
+			List<PushBatch> batches = createBatches(filesItem);
+			if (pushThreads > 1 && batches.size() > 1) {
+				pushBatches(batches, branch, Math.min(pushThreads, batches.size()));
+			} else {
+				for (PushBatch batch : batches) {
+					pushBatch(batch, branch);
+				}
+			}
+		} finally {
+			if (pushManifest != null) {
+				pushManifest.store(projectCacheFolder.toPath(), server.getUsername(), branch, getLog());
+				pushManifest = null;
+			}
+		}
+	}
 
-				String pushName = isBlank(fileSet.getCrowdinPath()) ?
-					fileSet.getBaseFileName() :
-					formatPath(fileSet.getCrowdinPath(), true) + fileSet.getBaseFileName();
-				boolean update = containsFile(filesElement, pushName, getLog());
+	/**
+	 * Uploads the specified {@link PushBatch}es concurrently. All the uploads
+	 * are attempted, and the failures are reported for each fileset in the
+	 * order of the {@link PushBatch}es when all are done.
+	 *
+	 * @param batches the {@link PushBatch}es to upload.
+	 * @param branch the branch name or {@code null}.
+	 * @param threads the maximum number of concurrent uploads.
+	 * @throws MojoExecutionException If one or more uploads failed.
+	 */
+	protected void pushBatches(
+		@Nonnull List<PushBatch> batches,
+		@Nullable final String branch,
+		int threads
+	) throws MojoExecutionException {
+		getLog().debug("Uploading " + batches.size() + " batches using " + threads + " threads");
+		List<Future<Void>> futures = new ArrayList<>(batches.size());
+		Map<String, String> failures = new LinkedHashMap<>();
+		try (AsyncCrowdinAPI api = new AsyncCrowdinAPI(client, server, threads, getLog())) {
+			for (final PushBatch batch : batches) {
+				futures.add(api.submit(new Callable<Void>() {
 
-				fileMap.put(pushName, pushFile);
-				if (!fileSet.getBaseFileName().equals(fileSet.getTitle())) {
-					titleMap.put(pushName, fileSet.getTitle());
+					@Override
+					public Void call() throws MojoExecutionException {
+						pushBatch(batch, branch);
+						return null;
+					}
+				}));
+			}
+			for (int i = 0; i < batches.size(); i++) {
+				String message = null;
+				try {
+					AsyncCrowdinAPI.get(futures.get(i));
+				} catch (IOException e) {
+					if (e.getCause() instanceof MojoExecutionException) {
+						message = e.getCause().getMessage();
+					} else {
+						message = e.getMessage();
+					}
+					if (Thread.currentThread().isInterrupted()) {
+						for (Future<Void> future : futures) {
+							future.cancel(true);
+						}
+						throw new MojoExecutionException("Interrupted while uploading files to crowdin", e);
+					}
+				} catch (RuntimeException e) {
+					message = e.getMessage();
+				}
+				if (message != null) {
+					for (PushFile pushFile : batches.get(i).getFiles()) {
+						failures.put(pushFile.getFileSet().getTitle(), message);
+					}
 				}
-				patternMap.put(pushName, fileSet.getFileNameWhenExported());
+			}
+		}
 
+		if (!failures.isEmpty()) {
+			for (Map.Entry<String, String> failure : failures.entrySet()) {
+				getLog().error("Upload failed for fileset \"" + failure.getKey() + "\": " + failure.getValue());
+			}
+			int total = 0;
+			for (PushBatch batch : batches) {
+				total += batch.getFiles().size();
+			}
+			throw new MojoExecutionException(
+				"Upload failed for " + failures.size() + " of " + total + " filesets: " + failures.keySet()
+			);
+		}
+	}
+
+	/**
+	 * Creates the {@link PushBatch}es for the {@link TranslationFileSet}s
+	 * whose base file exists. Files are grouped by the parameters that apply
+	 * to the whole request, and each {@link PushBatch} holds at most
+	 * {@link Constants#MAX_FILES_PER_REQUEST} files. Files that are unchanged
+	 * according to {@link #pushManifest} are left out if
+	 * {@link #pushChangedOnly} is {@code true} and {@link #force} is
+	 * {@code false}.
+	 *
+	 * @param filesItem the {@link CrowdinItem} representing the crowdin root
+	 *            or branch.
+	 * @return The {@link List} of {@link PushBatch}es in fileset order.
+	 * @throws MojoExecutionException If an error occurs while hashing a file.
+	 */
+	protected List<PushBatch> createBatches(CrowdinItem filesItem) throws MojoExecutionException {
+		List<PushBatch> result = new ArrayList<>();
+		Map<String, PushBatch> openBatches = new HashMap<>();
+		for (TranslationFileSet fileSet : translationFileSets) {
+			File pushFile = new File(fileSet.getLanguageFilesFolder(), fileSet.getBaseFileName());
+			if (!pushFile.exists()) {
 				if (!fileSet.getBaseFileName().equals(fileSet.getTitle())) {
-					getLog().info(
-						(update ? "Updating" : "Adding") + " file \"" + fileSet.getBaseFileName() +
-						"\" for fileset \"" + fileSet.getTitle() + "\" on crowdin"
+					getLog().warn(
+						"\"" + pushFile.getAbsolutePath() + "\" not found - upload skipped for fileset \"" +
+						fileSet.getTitle() + "\""
 					);
 				} else {
-					getLog().info((update ? "Updating" : "Adding") + " file \"" + fileSet.getBaseFileName() + "\" on crowdin");
+					getLog().warn("\"" + pushFile.getAbsolutePath() + "\" not found - upload skipped");
 				}
+				continue;
+			}
 
-				Map<String, String> parameters = new HashMap<String, String>();
-				if (branch != null) {
-					parameters.put("branch", branch);
-				}
-				parameters.put("escape_quotes", Integer.toString(getEscapeQuotes(fileSet)));
+			String pushName = isBlank(fileSet.getCrowdinPath()) ?
+				fileSet.getBaseFileName() :
+				formatPath(fileSet.getCrowdinPath(), true) + fileSet.getBaseFileName();
+			boolean update = containsFile(filesItem, pushName, getLog());
+			String hash = null;
+			if (pushManifest != null) {
 				try {
-					if (update) {
-						UpdateOption tmpUpdateOption = getUpdateOption(fileSet);
-						if (tmpUpdateOption != UpdateOption.delete_translations) {
-							parameters.put("update_option", tmpUpdateOption.name());
-						}
-						CrowdinAPI.requestPostDocument(
-							client,
-							server,
-							"update-file",
-							parameters,
-							fileMap,
-							titleMap,
-							patternMap,
-							true,
-							getLog()
-						);
-					} else {
-						parameters.put("type", fileSet.getType().name());
-						CrowdinAPI.requestPostDocument(
-							client,
-							server,
-							"add-file",
-							parameters,
-							fileMap,
-							titleMap,
-							patternMap,
-							true,
-							getLog()
-						);
-					}
+					hash = PushManifest.hash(
+						pushFile.toPath(),
+						Integer.toString(getEscapeQuotes(fileSet)),
+						fileSet.getTitle(),
+						fileSet.getFileNameWhenExported()
+					);
 				} catch (IOException e) {
 					throw new MojoExecutionException(
-						"An error occurred while " + (update ? "updating" : "adding") +
-						" file \"" + pushFile + "\": " + e.getMessage(),
+						"An error occurred while reading \"" + pushFile.getAbsolutePath() + "\": " + e.getMessage(),
 						e
 					);
 				}
+				if (update && pushChangedOnly && !force && pushManifest.matches(pushName, hash)) {
+					getLog().info("File \"" + fileSet.getBaseFileName() + "\" is unchanged since the last push - upload skipped");
+					continue;
+				}
+			}
+			PushBatch batch = new PushBatch(
+				update,
+				getEscapeQuotes(fileSet),
+				update ? getUpdateOption(fileSet) : null,
+				update ? null : fileSet.getType()
+			);
+			String key = batch.getKey();
+			PushBatch openBatch = openBatches.get(key);
+			if (openBatch == null || !openBatch.canAdd(pushName)) {
+				openBatch = batch;
+				openBatches.put(key, openBatch);
+				result.add(openBatch);
+			}
+			openBatch.add(new PushFile(fileSet, pushFile, pushName, hash));
+		}
+		return result;
+	}
+
+	/**
+	 * Uploads the files in the specified {@link PushBatch} to crowdin using a
+	 * single {@code add-file} or {@code update-file} request.
+	 *
+	 * @param batch the {@link PushBatch} to upload.
+	 * @param branch the branch name or {@code null}.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	protected void pushBatch(PushBatch batch, String branch) throws MojoExecutionException {
+		Map<String, File> fileMap = new LinkedHashMap<>();
+		Map<String, String> titleMap = new LinkedHashMap<>();
+		Map<String, String> patternMap = new LinkedHashMap<>();
+		for (PushFile pushFile : batch.getFiles()) {
+			TranslationFileSet fileSet = pushFile.getFileSet();
+			String pushName = pushFile.getPushName();
+			fileMap.put(pushName, pushFile.getFile());
+			if (!fileSet.getBaseFileName().equals(fileSet.getTitle())) {
+				titleMap.put(pushName, fileSet.getTitle());
+			}
+			patternMap.put(pushName, fileSet.getFileNameWhenExported());
+
+			if (!fileSet.getBaseFileName().equals(fileSet.getTitle())) {
+				getLog().info(
+					(batch.isUpdate() ? "Updating" : "Adding") + " file \"" + fileSet.getBaseFileName() +
+					"\" for fileset \"" + fileSet.getTitle() + "\" on crowdin"
+				);
 			} else {
-				if (!fileSet.getBaseFileName().equals(fileSet.getTitle())) {
-					getLog().warn(
-						"\"" + pushFile.getAbsolutePath() + "\" not found - upload skipped for fileset \"" +
-						fileSet.getTitle() + "\""
-					);
-				} else {
-					getLog().warn("\"" + pushFile.getAbsolutePath() + "\" not found - upload skipped");
+				getLog().info((batch.isUpdate() ? "Updating" : "Adding") + " file \"" + fileSet.getBaseFileName() + "\" on crowdin");
+			}
+		}
+
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (branch != null) {
+			parameters.put("branch", branch);
+		}
+		parameters.put("escape_quotes", Integer.toString(batch.getEscapeQuotes()));
+		if (batch.isUpdate()) {
+			if (batch.getUpdateOption() != UpdateOption.delete_translations) {
+				parameters.put("update_option", batch.getUpdateOption().name());
+			}
+		} else {
+			parameters.put("type", batch.getType().name());
+		}
+		String method = batch.isUpdate() ? "update-file" : "add-file";
+		if (fileMap.size() > 1) {
+			getLog().debug("Uploading " + fileMap.size() + " files using a single \"" + method + "\" request");
+		}
+		try {
+			CrowdinAPI.requestPostDocument(
+				client,
+				server,
+				method,
+				parameters,
+				fileMap,
+				titleMap,
+				patternMap,
+				true,
+				getLog()
+			);
+		} catch (IOException e) {
+			throw new MojoExecutionException(
+				"An error occurred while " + (batch.isUpdate() ? "updating" : "adding") +
+				(fileMap.size() == 1 ? " file \"" + batch.getFiles().get(0).getFile() + "\"" : " files " + fileMap.keySet()) +
+				": " + e.getMessage(),
+				e
+			);
+		}
+		if (pushManifest != null) {
+			for (PushFile pushFile : batch.getFiles()) {
+				if (pushFile.getHash() != null) {
+					pushManifest.put(pushFile.getPushName(), pushFile.getHash());
 				}
 			}
 		}
@@ -275,4 +492,204 @@ public class PushCrowdinMojo extends AbstractCrowdinMojo {
 			updateOption = UpdateOption.delete_translations;
 		}
 	}
+
+	/**
+	 * This class represents a file to upload to crowdin.
+	 */
+	@Immutable
+	protected static class PushFile {
+
+		/** The {@link TranslationFileSet} */
+		@Nonnull
+		private final TranslationFileSet fileSet;
+
+		/** The local file */
+		@Nonnull
+		private final File file;
+
+		/** The crowdin path */
+		@Nonnull
+		private final String pushName;
+
+		/** The {@link PushManifest} hash */
+		@Nullable
+		private final String hash;
+
+		/**
+		 * Creates a new instance using the specified parameters.
+		 *
+		 * @param fileSet the {@link TranslationFileSet}.
+		 * @param file the local file.
+		 * @param pushName the crowdin path.
+		 * @param hash the {@link PushManifest} hash or {@code null}.
+		 */
+		public PushFile(
+			@Nonnull TranslationFileSet fileSet,
+			@Nonnull File file,
+			@Nonnull String pushName,
+			@Nullable String hash
+		) {
+			this.fileSet = fileSet;
+			this.file = file;
+			this.pushName = pushName;
+			this.hash = hash;
+		}
+
+		/**
+		 * @return The {@link TranslationFileSet}.
+		 */
+		@Nonnull
+		public TranslationFileSet getFileSet() {
+			return fileSet;
+		}
+
+		/**
+		 * @return The local file.
+		 */
+		@Nonnull
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * @return The crowdin path.
+		 */
+		@Nonnull
+		public String getPushName() {
+			return pushName;
+		}
+
+		/**
+		 * @return The {@link PushManifest} hash or {@code null}.
+		 */
+		@Nullable
+		public String getHash() {
+			return hash;
+		}
+	}
+
+	/**
+	 * This class represents a group of files that can be uploaded to crowdin
+	 * using a single request because they share all the request parameters.
+	 */
+	protected static class PushBatch {
+
+		/** Whether the files exist on crowdin */
+		private final boolean update;
+
+		/** The "{@code escape_quotes}" value */
+		private final int escapeQuotes;
+
+		/** The "{@code update_option}" value for updates */
+		@Nullable
+		private final UpdateOption updateOption;
+
+		/** The "{@code type}" value for new files */
+		@Nullable
+		private final FileType type;
+
+		/** The files */
+		@Nonnull
+		private final List<PushFile> files = new ArrayList<>();
+
+		/**
+		 * Creates a new instance using the specified parameters.
+		 *
+		 * @param update {@code true} if the files exist on crowdin,
+		 *            {@code false} otherwise.
+		 * @param escapeQuotes the "{@code escape_quotes}" value.
+		 * @param updateOption the "{@code update_option}" value if
+		 *            {@code update} is {@code true}.
+		 * @param type the "{@code type}" value if {@code update} is
+		 *            {@code false}.
+		 */
+		public PushBatch(
+			boolean update,
+			int escapeQuotes,
+			@Nullable UpdateOption updateOption,
+			@Nullable FileType type
+		) {
+			this.update = update;
+			this.escapeQuotes = escapeQuotes;
+			this.updateOption = updateOption;
+			this.type = type;
+		}
+
+		/**
+		 * @return {@code true} if the files exist on crowdin, {@code false}
+		 *         otherwise.
+		 */
+		public boolean isUpdate() {
+			return update;
+		}
+
+		/**
+		 * @return The "{@code escape_quotes}" value.
+		 */
+		public int getEscapeQuotes() {
+			return escapeQuotes;
+		}
+
+		/**
+		 * @return The "{@code update_option}" value for updates.
+		 */
+		@Nullable
+		public UpdateOption getUpdateOption() {
+			return updateOption;
+		}
+
+		/**
+		 * @return The "{@code type}" value for new files.
+		 */
+		@Nullable
+		public FileType getType() {
+			return type;
+		}
+
+		/**
+		 * @return The files.
+		 */
+		@Nonnull
+		public List<PushFile> getFiles() {
+			return files;
+		}
+
+		/**
+		 * @return A key that is equal for {@link PushBatch}es with the same
+		 *         request parameters.
+		 */
+		@Nonnull
+		public String getKey() {
+			return (update ? "update-file" : "add-file") + "|" + escapeQuotes + "|" + (update ? updateOption : type);
+		}
+
+		/**
+		 * Checks whether a file with the specified crowdin path can be added
+		 * to this {@link PushBatch}.
+		 *
+		 * @param pushName the crowdin path.
+		 * @return {@code true} if the file can be added, {@code false}
+		 *         otherwise.
+		 */
+		public boolean canAdd(@Nonnull String pushName) {
+			if (files.size() >= MAX_FILES_PER_REQUEST) {
+				return false;
+			}
+			for (PushFile file : files) {
+				if (file.getPushName().equals(pushName)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Adds a file to this {@link PushBatch}.
+		 *
+		 * @param file the {@link PushFile} to add.
+		 */
+		public void add(@Nonnull PushFile file) {
+			files.add(file);
+		}
+	}
 }
@@ -0,0 +1,694 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin;
+
+import static org.digitalmediaserver.crowdin.tool.Constants.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.digitalmediaserver.crowdin.configuration.PathPlaceholder;
+import org.digitalmediaserver.crowdin.configuration.PlaceholderConversion;
+import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
+import org.digitalmediaserver.crowdin.tool.AsyncCrowdinAPI;
+import org.digitalmediaserver.crowdin.tool.Constants;
+import org.digitalmediaserver.crowdin.tool.CrowdinAPI;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+
+/**
+ * Uploads existing local translation files to crowdin. The local files are
+ * found by matching their paths against the path each
+ * {@link TranslationFileSet} deploys translations to, and the crowdin
+ * language code is resolved from the matched placeholders. The files are
+ * uploaded in batches, with the languages uploaded concurrently.
+ *
+ * @goal push-translations
+ */
+public class PushTranslationsCrowdinMojo extends AbstractCrowdinMojo {
+
+	/**
+	 * The placeholders that can be used to resolve the crowdin language code,
+	 * in order of preference.
+	 */
+	protected static final List<String> LANGUAGE_PLACEHOLDERS = Collections.unmodifiableList(
+		Arrays.asList(
+			"%crowdin_code%",
+			"%crowdin_code_with_underscore%",
+			PathPlaceholder.LOCALE_HYPHEN.getIdentifier(),
+			PathPlaceholder.LOCALE_UNDERSCORE.getIdentifier(),
+			PathPlaceholder.ANDROID_CODE.getIdentifier(),
+			PathPlaceholder.MACOS_LOCALE.getIdentifier(),
+			PathPlaceholder.MACOS_CODE.getIdentifier(),
+			PathPlaceholder.TWO_LETTER.getIdentifier(),
+			PathPlaceholder.THREE_LETTER.getIdentifier(),
+			"%shortest_iso639_code%",
+			PathPlaceholder.LANGUAGE.getIdentifier()
+		)
+	);
+
+	/**
+	 * This parameter must match the POM name of the current project in is used
+	 * to prevent pushing to the wrong project.
+	 *
+	 * @parameter
+	 * @required
+	 */
+	protected String projectName;
+
+	/**
+	 * This parameter must be {@code true} for push-translations to execute. If
+	 * this isn't specified in the POM file, {@code -Dconfirm=true} is required
+	 * as a command line argument for the upload to execute.
+	 *
+	 * @parameter property="confirm"
+	 * @required
+	 */
+	protected String confirm;
+
+	/**
+	 * Whether to import translations that are identical to existing
+	 * translations.
+	 *
+	 * @parameter property="importDuplicates" default-value="false"
+	 */
+	protected boolean importDuplicates;
+
+	/**
+	 * Whether to import translations that are equal to the source strings.
+	 *
+	 * @parameter property="importEqualSuggestions" default-value="false"
+	 */
+	protected boolean importEqualSuggestions;
+
+	/**
+	 * Whether to automatically approve the imported translations.
+	 *
+	 * @parameter property="autoApproveImported" default-value="false"
+	 */
+	protected boolean autoApproveImported;
+
+	@Override
+	@SuppressFBWarnings({"NP_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD", "UWF_UNWRITTEN_PUBLIC_OR_PROTECTED_FIELD"})
+	public void execute() throws MojoExecutionException {
+		if (!confirm.equalsIgnoreCase("confirm") && !confirm.equalsIgnoreCase("yes") && !confirm.equalsIgnoreCase("true")) {
+			throw new MojoExecutionException("Push of translations is not confirmed - aborting!");
+		}
+
+		if (!project.getName().equals(projectName)) {
+			throw new MojoExecutionException(
+				"POM name (" + project.getName() + ") differs from \"projectName\" parameter (" + projectName +
+				") - push of translations aborted!"
+			);
+		}
+
+		initializeParameters();
+		initializeServer();
+		createClient();
+		TranslationFileSet.initialize(translationFileSets);
+		doExecute();
+	}
+
+	/**
+	 * Performs the actual task. Requires that:
+	 * <ul>
+	 * <li>{@link #createClient()} has been called first</li>
+	 * <li>{@link #initializeServer()} has been called first</li>
+	 * </ul>
+	 *
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	public void doExecute() throws MojoExecutionException {
+		if (translationFileSets == null || translationFileSets.isEmpty()) {
+			throw new MojoExecutionException("No filesets are defined");
+		}
+
+		String branch = getBranch();
+		List<String> projectLanguages = getLanguages();
+		if (projectLanguages.isEmpty()) {
+			try {
+				projectLanguages = getProjectLanguages(branch);
+			} catch (IOException e) {
+				throw new MojoExecutionException(
+					"An error occurred while getting the crowdin project languages: " + e.getMessage(),
+					e
+				);
+			}
+		}
+		if (projectLanguages.isEmpty()) {
+			throw new MojoExecutionException("The crowdin project has no target languages");
+		}
+
+		Map<String, Map<String, File>> translations = findTranslations(projectLanguages);
+		if (translations.isEmpty()) {
+			getLog().info("No translation files to upload were found");
+			return;
+		}
+		uploadTranslations(translations, branch);
+	}
+
+	/**
+	 * Returns the crowdin language codes of the project's target languages.
+	 * The project information is shared with the other goals in the session
+	 * and cached like the file tree, so it's normally already available.
+	 *
+	 * @param branch the branch name or {@code null}.
+	 * @return The {@link List} of crowdin language codes.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected List<String> getProjectLanguages(@Nullable String branch) throws IOException {
+		List<String> result = getProjectInfo(branch, true).getLanguages();
+		getLog().debug("Crowdin project languages: " + result);
+		return result;
+	}
+
+	/**
+	 * Finds the local translation files of all the
+	 * {@link TranslationFileSet}s.
+	 *
+	 * @param projectLanguages the crowdin language codes to upload
+	 *            translations for.
+	 * @return A {@link Map} of crowdin language codes to {@link Map}s of
+	 *         crowdin paths to local files.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected Map<String, Map<String, File>> findTranslations(
+		@Nonnull List<String> projectLanguages
+	) throws MojoExecutionException {
+		Map<String, Map<String, File>> result = new TreeMap<>();
+		Set<Path> claimed = new HashSet<>();
+		for (TranslationFileSet fileSet : translationFileSets) {
+			LocalMatchInfo matchInfo = buildLocalMatchInfo(fileSet);
+			if (matchInfo == null) {
+				continue;
+			}
+			String pushName = isBlank(fileSet.getCrowdinPath()) ?
+				fileSet.getBaseFileName() :
+				CrowdinFileSystem.formatPath(fileSet.getCrowdinPath(), true) + fileSet.getBaseFileName();
+			Path folder = fileSet.getLanguageFilesFolder().toPath();
+			Path baseFile = folder.resolve(fileSet.getBaseFileName()).normalize();
+			for (Path file : listFiles(folder)) {
+				if (file.equals(baseFile) || claimed.contains(file)) {
+					continue;
+				}
+				String relativeFile = CrowdinFileSystem.formatPath(folder.relativize(file), false);
+				Matcher matcher = matchInfo.getPattern().matcher(relativeFile);
+				if (!matcher.matches()) {
+					continue;
+				}
+				String language = resolveLanguage(matcher, matchInfo, projectLanguages);
+				if (language == null) {
+					getLog().warn(
+						"Couldn't resolve a crowdin language for \"" + file + "\" in fileset \"" +
+						fileSet.getTitle() + "\" - skipping file"
+					);
+					continue;
+				}
+				Map<String, File> files = result.get(language);
+				if (files == null) {
+					files = new LinkedHashMap<>();
+					result.put(language, files);
+				}
+				if (files.containsKey(pushName)) {
+					getLog().warn(
+						"\"" + file + "\" and \"" + files.get(pushName) + "\" are both translations of \"" +
+						pushName + "\" to \"" + language + "\" - skipping \"" + file + "\""
+					);
+					continue;
+				}
+				getLog().debug("Found \"" + language + "\" translation \"" + file + "\" of \"" + pushName + "\"");
+				files.put(pushName, file.toFile());
+				claimed.add(file);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Uploads the specified translation files using the
+	 * {@code upload-translation} API method. Each language is uploaded by its
+	 * own task, in batches of at most {@link Constants#MAX_FILES_PER_REQUEST} files,
+	 * and the tasks run concurrently. All the languages are attempted, and the
+	 * failures are reported for each language when all are done.
+	 *
+	 * @param translations the {@link Map} of crowdin language codes to
+	 *            {@link Map}s of crowdin paths to local files.
+	 * @param branch the branch name or {@code null}.
+	 * @throws MojoExecutionException If one or more uploads failed.
+	 */
+	protected void uploadTranslations(
+		@Nonnull Map<String, Map<String, File>> translations,
+		@Nullable final String branch
+	) throws MojoExecutionException {
+		Map<String, Future<Integer>> futures = new LinkedHashMap<>();
+		Map<String, String> failures = new LinkedHashMap<>();
+		int count = 0;
+		try (AsyncCrowdinAPI api = createAsyncAPI()) {
+			for (final Map.Entry<String, Map<String, File>> entry : translations.entrySet()) {
+				futures.put(entry.getKey(), api.submit(new Callable<Integer>() {
+
+					@Override
+					public Integer call() throws IOException {
+						return Integer.valueOf(uploadLanguage(entry.getKey(), entry.getValue(), branch));
+					}
+				}));
+			}
+			for (Map.Entry<String, Future<Integer>> entry : futures.entrySet()) {
+				try {
+					count += AsyncCrowdinAPI.get(entry.getValue()).intValue();
+				} catch (IOException e) {
+					if (Thread.currentThread().isInterrupted()) {
+						for (Future<Integer> future : futures.values()) {
+							future.cancel(true);
+						}
+						throw new MojoExecutionException("Interrupted while uploading translations to crowdin", e);
+					}
+					failures.put(entry.getKey(), e.getMessage());
+				}
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			for (Map.Entry<String, String> failure : failures.entrySet()) {
+				getLog().error("Upload of \"" + failure.getKey() + "\" translations failed: " + failure.getValue());
+			}
+			throw new MojoExecutionException(
+				"Upload failed for " + failures.size() + " of " + translations.size() + " languages: " + failures.keySet()
+			);
+		}
+		getLog().info("Uploaded " + count + " translation files for " + translations.size() + " languages");
+	}
+
+	/**
+	 * Uploads the translation files for one language in batches of at most
+	 * {@link Constants#MAX_FILES_PER_REQUEST} files.
+	 *
+	 * @param language the crowdin language code.
+	 * @param files the {@link Map} of crowdin paths to local files.
+	 * @param branch the branch name or {@code null}.
+	 * @return The number of files crowdin reported as uploaded.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected int uploadLanguage(
+		@Nonnull String language,
+		@Nonnull Map<String, File> files,
+		@Nullable String branch
+	) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		if (branch != null) {
+			parameters.put("branch", branch);
+		}
+		parameters.put("language", language);
+		parameters.put("import_duplicates", importDuplicates ? "1" : "0");
+		parameters.put("import_eq_suggestions", importEqualSuggestions ? "1" : "0");
+		parameters.put("auto_approve_imported", autoApproveImported ? "1" : "0");
+
+		getLog().info("Uploading " + files.size() + " \"" + language + "\" translation files to crowdin");
+		int count = 0;
+		Map<String, File> batch = new LinkedHashMap<>();
+		for (Map.Entry<String, File> entry : files.entrySet()) {
+			batch.put(entry.getKey(), entry.getValue());
+			if (batch.size() >= MAX_FILES_PER_REQUEST) {
+				count += uploadBatch(language, batch, parameters);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			count += uploadBatch(language, batch, parameters);
+		}
+		return count;
+	}
+
+	/**
+	 * Uploads a batch of translation files using a single
+	 * {@code upload-translation} request.
+	 *
+	 * @param language the crowdin language code.
+	 * @param batch the {@link Map} of crowdin paths to local files.
+	 * @param parameters the API parameters.
+	 * @return The number of files crowdin reported as uploaded.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected int uploadBatch(
+		@Nonnull String language,
+		@Nonnull Map<String, File> batch,
+		@Nonnull Map<String, String> parameters
+	) throws IOException {
+		Document document = CrowdinAPI.requestPostDocument(
+			client,
+			server,
+			"upload-translation",
+			parameters,
+			batch,
+			true,
+			getLog()
+		);
+		int count = 0;
+		Element filesElement = document.getRootElement().getChild("files");
+		if (filesElement == null) {
+			return batch.size();
+		}
+		for (Element fileElement : filesElement.getChildren("file")) {
+			String status = fileElement.getAttributeValue("status");
+			if ("uploaded".equals(status)) {
+				count++;
+				getLog().debug(
+					"Uploaded \"" + language + "\" translation of \"" + fileElement.getAttributeValue("name") + "\""
+				);
+			} else {
+				getLog().warn(
+					"Crowdin replied \"" + status + "\" to the \"" + language + "\" translation of \"" +
+					fileElement.getAttributeValue("name") + "\""
+				);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Creates a {@link LocalMatchInfo} for the local translation files of the
+	 * specified {@link TranslationFileSet}. The local path is
+	 * {@link TranslationFileSet#getTargetFileName()} if it's specified, or
+	 * {@link TranslationFileSet#getFileNameWhenExported()} relative to the
+	 * folder of the base file otherwise, which is where {@code deploy} writes
+	 * the translation files.
+	 *
+	 * @param fileSet the {@link TranslationFileSet}.
+	 * @return The {@link LocalMatchInfo} or {@code null} if the local path has
+	 *         no placeholder that identifies the language.
+	 * @throws MojoExecutionException If the local path has an unknown
+	 *             placeholder.
+	 */
+	@Nullable
+	protected LocalMatchInfo buildLocalMatchInfo(@Nonnull TranslationFileSet fileSet) throws MojoExecutionException {
+		String template;
+		boolean target = !isBlank(fileSet.getTargetFileName());
+		if (target) {
+			template = fileSet.getTargetFileName();
+		} else {
+			template = CrowdinFileSystem.formatPath(CrowdinFileSystem.getPushFolder(fileSet, false), true) +
+				CrowdinFileSystem.formatPath(fileSet.getFileNameWhenExported(), false);
+		}
+		while (template.startsWith("/")) {
+			template = template.substring(1);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		List<String> placeholders = new ArrayList<>();
+		boolean hasLanguage = false;
+		Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+		int next = 0;
+		while (matcher.find()) {
+			if (matcher.start() > next) {
+				sb.append(Pattern.quote(template.substring(next, matcher.start())));
+			}
+			String identifier = matcher.group().toLowerCase(Locale.ROOT);
+			PathPlaceholder placeholder = PathPlaceholder.typeOf(matcher.group());
+			if (
+				placeholder == null && (
+					!target ||
+					!"%crowdin_code%".equals(identifier) &&
+					!"%crowdin_code_with_underscore%".equals(identifier) &&
+					!"%shortest_iso639_code%".equals(identifier)
+				)
+			) {
+				throw new MojoExecutionException(
+					"Unknown placeholder \"" + matcher.group() + "\" in translation fileset \"" + fileSet.getTitle() + "\""
+				);
+			}
+			if (placeholder != null) {
+				identifier = placeholder.getIdentifier();
+			}
+			sb.append(placeholder == PathPlaceholder.ORIGINAL_PATH ? "(.+?)" : "([^/]+?)");
+			placeholders.add(identifier);
+			if (LANGUAGE_PLACEHOLDERS.contains(identifier)) {
+				hasLanguage = true;
+			}
+			next = matcher.end();
+		}
+		if (next < template.length()) {
+			sb.append(Pattern.quote(template.substring(next)));
+		}
+		if (!hasLanguage) {
+			getLog().warn(
+				"Can't find translations for fileset \"" + fileSet.getTitle() + "\" because \"" + template +
+				"\" doesn't identify the language - skipping fileset"
+			);
+			return null;
+		}
+		return new LocalMatchInfo(fileSet, Pattern.compile(sb.toString()), placeholders);
+	}
+
+	/**
+	 * Resolves the crowdin language code of a matched local file from the
+	 * matched placeholders, preferring the placeholders that are the most
+	 * specific.
+	 *
+	 * @param matcher the {@link Matcher} that matched the local file.
+	 * @param matchInfo the {@link LocalMatchInfo} used for matching.
+	 * @param projectLanguages the crowdin language codes to upload
+	 *            translations for.
+	 * @return The crowdin language code or {@code null} if it can't be
+	 *         resolved unambiguously.
+	 */
+	@Nullable
+	protected static String resolveLanguage(
+		@Nonnull Matcher matcher,
+		@Nonnull LocalMatchInfo matchInfo,
+		@Nonnull List<String> projectLanguages
+	) {
+		List<PlaceholderConversion> conversions = matchInfo.getFileSet().getPlaceholderConversions();
+		for (String identifier : LANGUAGE_PLACEHOLDERS) {
+			int index = matchInfo.getPlaceholders().indexOf(identifier);
+			if (index < 0) {
+				continue;
+			}
+			String value = reverseConvertPlaceholder(matcher.group(index + 1), conversions);
+			if (
+				"%crowdin_code_with_underscore%".equals(identifier) ||
+				PathPlaceholder.LOCALE_UNDERSCORE.getIdentifier().equals(identifier) ||
+				PathPlaceholder.MACOS_LOCALE.getIdentifier().equals(identifier)
+			) {
+				value = value.replace('_', '-');
+			} else if (PathPlaceholder.ANDROID_CODE.getIdentifier().equals(identifier)) {
+				value = value.replace("-r", "-");
+			} else if (PathPlaceholder.MACOS_CODE.getIdentifier().equals(identifier)) {
+				if (value.endsWith(".lproj")) {
+					value = value.substring(0, value.length() - 6);
+				}
+				value = value.replace('_', '-');
+			}
+			String result = matchLanguage(value, projectLanguages);
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the crowdin language code that matches the specified language
+	 * code or name. A code with a region must match exactly or match a code
+	 * without a region, while a code or name without a region matches the
+	 * only crowdin language code with the same {@link ISO639} language.
+	 *
+	 * @param value the language code or name.
+	 * @param projectLanguages the crowdin language codes to choose from.
+	 * @return The crowdin language code or {@code null} if no unambiguous
+	 *         match is found.
+	 */
+	@Nullable
+	protected static String matchLanguage(@Nonnull String value, @Nonnull List<String> projectLanguages) {
+		for (String code : projectLanguages) {
+			if (code.equalsIgnoreCase(value)) {
+				return code;
+			}
+		}
+		int hyphen = value.indexOf('-');
+		if (hyphen > 0) {
+			String primary = value.substring(0, hyphen);
+			for (String code : projectLanguages) {
+				if (code.equalsIgnoreCase(primary)) {
+					return code;
+				}
+			}
+			return null;
+		}
+		ISO639 language = ISO639.get(value);
+		if (language == null) {
+			return null;
+		}
+		String result = null;
+		for (String code : projectLanguages) {
+			int codeHyphen = code.indexOf('-');
+			if (language == ISO639.getCode(codeHyphen > 0 ? code.substring(0, codeHyphen) : code)) {
+				if (result != null) {
+					return null;
+				}
+				result = code;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Lists the files in the specified folder and its subfolders, skipping
+	 * folders whose names start with {@code "."}.
+	 *
+	 * @param folder the folder to list.
+	 * @return The sorted {@link List} of normalized file {@link Path}s.
+	 * @throws MojoExecutionException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected List<Path> listFiles(@Nonnull final Path folder) throws MojoExecutionException {
+		final List<Path> result = new ArrayList<>();
+		try {
+			Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					Path name = dir.getFileName();
+					if (!dir.equals(folder) && name != null && name.toString().startsWith(".")) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (attrs.isRegularFile()) {
+						result.add(file.normalize());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new MojoExecutionException("An error occurred while listing \"" + folder + "\": " + e.getMessage(), e);
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	@Nonnull
+	private static String reverseConvertPlaceholder(
+		@Nonnull String value,
+		@Nullable List<PlaceholderConversion> conversions
+	) {
+		if (conversions == null || conversions.isEmpty()) {
+			return value;
+		}
+		for (PlaceholderConversion conversion : conversions) {
+			if (value.equals(conversion.getTo())) {
+				return conversion.getFrom();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * A class holding information for matching a local file path to a
+	 * {@link TranslationFileSet}.
+	 */
+	@Immutable
+	public static class LocalMatchInfo {
+
+		@Nonnull
+		private final TranslationFileSet fileSet;
+
+		@Nonnull
+		private final Pattern pattern;
+
+		@Nonnull
+		private final List<String> placeholders;
+
+		/**
+		 * Create a new instance with the specified values.
+		 *
+		 * @param fileSet the {@link TranslationFileSet}.
+		 * @param pattern the matching {@link Pattern}.
+		 * @param placeholders the {@link List} of lower case placeholder
+		 *            identifiers in group order.
+		 */
+		public LocalMatchInfo(
+			@Nonnull TranslationFileSet fileSet,
+			@Nonnull Pattern pattern,
+			@Nonnull List<String> placeholders
+		) {
+			this.fileSet = fileSet;
+			this.pattern = pattern;
+			this.placeholders = placeholders;
+		}
+
+		/**
+		 * @return The {@link TranslationFileSet}.
+		 */
+		@Nonnull
+		public TranslationFileSet getFileSet() {
+			return fileSet;
+		}
+
+		/**
+		 * @return The match {@link Pattern}.
+		 */
+		@Nonnull
+		public Pattern getPattern() {
+			return pattern;
+		}
+
+		/**
+		 * @return The {@link List} of placeholder identifiers in group order.
+		 */
+		@Nonnull
+		public List<String> getPlaceholders() {
+			return placeholders;
+		}
+
+		@Override
+		public String toString() {
+			return "LocalMatchInfo [fileSet=" + fileSet + ", pattern=\"" + pattern + "\", placeholders=" + placeholders + "]";
+		}
+	}
+}
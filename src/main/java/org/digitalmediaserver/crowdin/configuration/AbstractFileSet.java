@@ -20,10 +20,13 @@ package org.digitalmediaserver.crowdin.configuration;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import javax.annotation.Nullable;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.digitalmediaserver.crowdin.tool.PathFilter;
 
 /**
  * An abstract {@link org.apache.maven.plugin.Mojo} configuration class
@@ -139,6 +142,14 @@ public abstract class AbstractFileSet {
 	@Nullable
 	protected List<String> excludes;
 
+	/** The compiled {@link #includes} */
+	@Nullable
+	protected List<PathFilter> includeFilters;
+
+	/** The compiled {@link #excludes} */
+	@Nullable
+	protected List<PathFilter> excludeFilters;
+
 	/**
 	 * For internal use.
 	 */
@@ -274,6 +285,25 @@ public abstract class AbstractFileSet {
 		return excludes;
 	}
 
+	/**
+	 * @return The compiled {@link #getIncludes()} or {@code null} if no
+	 *         inclusions are configured. An empty {@link List} means that
+	 *         nothing is included.
+	 */
+	@Nullable
+	public List<PathFilter> getIncludeFilters() {
+		return includeFilters;
+	}
+
+	/**
+	 * @return The compiled {@link #getExcludes()} or {@code null} if no
+	 *         exclusions are configured.
+	 */
+	@Nullable
+	public List<PathFilter> getExcludeFilters() {
+		return excludeFilters;
+	}
+
 	/**
 	 * Since the constructor is called automagically by Maven, verification and
 	 * initialization of defaults is done here.
@@ -308,5 +338,31 @@ public abstract class AbstractFileSet {
 				}
 			}
 		}
+
+		// Include and exclude filters
+		includeFilters = compileFilters(includes);
+		excludeFilters = compileFilters(excludes);
+	}
+
+	/**
+	 * Compiles the specified filters, ignoring blank filters.
+	 *
+	 * @param filters the filters to compile.
+	 * @return The {@link List} of {@link PathFilter}s or {@code null} if
+	 *         {@code filters} is {@code null} or empty.
+	 */
+	@Nullable
+	protected static List<PathFilter> compileFilters(@Nullable List<String> filters) {
+		if (filters == null || filters.isEmpty()) {
+			return null;
+		}
+		List<PathFilter> result = new ArrayList<>(filters.size());
+		for (String filter : filters) {
+			PathFilter pathFilter = PathFilter.compile(filter);
+			if (pathFilter != null) {
+				result.add(pathFilter);
+			}
+		}
+		return Collections.unmodifiableList(result);
 	}
 }
@@ -0,0 +1,349 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Server;
+import org.jdom2.Document;
+
+
+/**
+ * An asynchronous counterpart to {@link CrowdinAPI}. Every call is submitted
+ * to a bounded pool of worker threads and returns immediately with a
+ * {@link Future}, so that independent requests can overlap. The number of
+ * requests in flight never exceeds the size of the worker pool, which should
+ * not exceed the maximum number of connections per route of the
+ * {@link HttpClient}.
+ *
+ * @author Nadahar
+ */
+@ThreadSafe
+public class AsyncCrowdinAPI implements Closeable {
+
+	/** The thread counter used for naming */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/** The {@link HttpClient} to use */
+	@Nonnull
+	protected final HttpClient httpClient;
+
+	/** The {@link Server} to use for crowdin credentials */
+	@Nonnull
+	protected final Server server;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/** The worker pool */
+	@Nonnull
+	protected final ExecutorService executor;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param maxInFlight the maximum number of concurrent requests.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @throws IllegalArgumentException If {@code maxInFlight} is less than 1.
+	 */
+	public AsyncCrowdinAPI(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		int maxInFlight,
+		@Nullable Log logger
+	) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		}
+		this.httpClient = httpClient;
+		this.server = server;
+		this.logger = logger;
+		this.executor = Executors.newFixedThreadPool(maxInFlight, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "crowdin-api-" + THREAD_COUNTER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously requests project information and returns the root or
+	 * branch {@link CrowdinItem}.
+	 *
+	 * @param branch the branch name.
+	 * @param projectInfo the project information.
+	 * @return The {@link Future} holding the relevant {@link CrowdinItem}.
+	 * @see CrowdinAPI#getFiles(HttpClient, Server, String, CrowdinProject,
+	 *      Log)
+	 */
+	@Nonnull
+	public Future<CrowdinItem> getFiles(@Nullable final String branch, @Nullable final CrowdinProject projectInfo) {
+		return executor.submit(new Callable<CrowdinItem>() {
+
+			@Override
+			public CrowdinItem call() throws IOException {
+				return CrowdinAPI.getFiles(httpClient, server, branch, projectInfo, logger);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously requests project information, optionally pruned to the
+	 * specified branch.
+	 *
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 * @param prune whether to prune the file tree.
+	 * @return The {@link Future} holding the {@link CrowdinProject}.
+	 * @see CrowdinAPI#getProjectInfo(HttpClient, Server, String, boolean, Log)
+	 */
+	@Nonnull
+	public Future<CrowdinProject> getProjectInfo(@Nullable final String branch, final boolean prune) {
+		return executor.submit(new Callable<CrowdinProject>() {
+
+			@Override
+			public CrowdinProject call() throws IOException {
+				return CrowdinAPI.getProjectInfo(httpClient, server, branch, prune, logger);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously creates a new folder at crowdin.
+	 *
+	 * @param folderName the full path of the new folder.
+	 * @return The {@link Future} that completes when the folder is created.
+	 * @see CrowdinFileSystem#createFolder(HttpClient, Server, String, Log)
+	 */
+	@Nonnull
+	public Future<Void> createFolder(@Nonnull final String folderName) {
+		return executor.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				CrowdinFileSystem.createFolder(httpClient, server, folderName, logger);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously makes a GET request to the crowdin API.
+	 *
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @return The {@link Future} holding the retrieved {@link Document}.
+	 * @see CrowdinAPI#requestGetDocument(HttpClient, Server, String, Map, Log)
+	 */
+	@Nonnull
+	public Future<Document> requestGetDocument(
+		@Nonnull final String method,
+		@Nullable final Map<String, String> parameters
+	) {
+		return executor.submit(new Callable<Document>() {
+
+			@Override
+			public Document call() throws IOException {
+				return CrowdinAPI.requestGetDocument(httpClient, server, method, parameters, logger);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously makes a POST request to the crowdin API.
+	 *
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @param files the {@link Map} of files to use.
+	 * @param mustSucceed whether to fail if the returned {@link Document}
+	 *            contains an error code.
+	 * @return The {@link Future} holding the retrieved {@link Document}.
+	 * @see CrowdinAPI#requestPostDocument(HttpClient, Server, String, Map,
+	 *      Map, boolean, Log)
+	 */
+	@Nonnull
+	public Future<Document> requestPostDocument(
+		@Nonnull String method,
+		@Nullable Map<String, String> parameters,
+		@Nullable Map<String, File> files,
+		boolean mustSucceed
+	) {
+		return requestPostDocument(method, parameters, files, null, null, mustSucceed);
+	}
+
+	/**
+	 * Asynchronously makes a POST request to the crowdin API.
+	 *
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @param files the {@link Map} of files to use.
+	 * @param titles the {@link Map} of titles to use.
+	 * @param patterns the {@link Map} of patterns to use.
+	 * @param mustSucceed whether to fail if the returned {@link Document}
+	 *            contains an error code.
+	 * @return The {@link Future} holding the retrieved {@link Document}.
+	 * @see CrowdinAPI#requestPostDocument(HttpClient, Server, String, Map,
+	 *      Map, Map, Map, boolean, Log)
+	 */
+	@Nonnull
+	public Future<Document> requestPostDocument(
+		@Nonnull final String method,
+		@Nullable final Map<String, String> parameters,
+		@Nullable final Map<String, File> files,
+		@Nullable final Map<String, String> titles,
+		@Nullable final Map<String, String> patterns,
+		final boolean mustSucceed
+	) {
+		return executor.submit(new Callable<Document>() {
+
+			@Override
+			public Document call() throws IOException {
+				return CrowdinAPI.requestPostDocument(
+					httpClient,
+					server,
+					method,
+					parameters,
+					files,
+					titles,
+					patterns,
+					mustSucceed,
+					logger
+				);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronously makes a POST request to the crowdin API. The caller is
+	 * responsible for consuming the entity of the resulting
+	 * {@link HttpResponse} so that the connection is released.
+	 *
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @return The {@link Future} holding the resulting {@link HttpResponse}.
+	 * @see CrowdinAPI#requestPost(HttpClient, Server, String, Map, Log)
+	 */
+	@Nonnull
+	public Future<HttpResponse> requestPost(
+		@Nonnull final String method,
+		@Nullable final Map<String, String> parameters
+	) {
+		return executor.submit(new Callable<HttpResponse>() {
+
+			@Override
+			public HttpResponse call() throws IOException {
+				return CrowdinAPI.requestPost(httpClient, server, method, parameters, logger);
+			}
+		});
+	}
+
+	/**
+	 * Submits an arbitrary task to the worker pool. This can be used to run
+	 * sequences of blocking {@link CrowdinAPI} calls concurrently with other
+	 * requests, while still respecting the in-flight limit.
+	 *
+	 * @param <T> the result type.
+	 * @param task the {@link Callable} to run.
+	 * @return The {@link Future} holding the result of {@code task}.
+	 */
+	@Nonnull
+	public <T> Future<T> submit(@Nonnull Callable<T> task) {
+		return executor.submit(task);
+	}
+
+	/**
+	 * Waits for the specified {@link Future} to complete and returns its
+	 * result, unwrapping any {@link IOException} thrown by the task.
+	 *
+	 * @param <T> the result type.
+	 * @param future the {@link Future} to wait for.
+	 * @return The result of {@code future}.
+	 * @throws IOException If the task failed or the wait was interrupted.
+	 */
+	public static <T> T get(@Nonnull Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new IOException("Interrupted while waiting for crowdin", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause == null ? e.getMessage() : cause.getMessage(), cause == null ? e : cause);
+		}
+	}
+
+	/**
+	 * Stops accepting new requests. Requests already submitted will still be
+	 * completed. The {@link HttpClient} isn't closed.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Stops accepting new requests and waits for the requests already
+	 * submitted to finish, or for the specified timeout to elapse.
+	 *
+	 * @param timeout the maximum time to wait.
+	 * @param unit the {@link TimeUnit} of {@code timeout}.
+	 * @return {@code true} if all requests have finished, {@code false} if the
+	 *         timeout elapsed or the wait was interrupted.
+	 */
+	public boolean close(long timeout, @Nonnull TimeUnit unit) {
+		executor.shutdown();
+		try {
+			return executor.awaitTermination(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
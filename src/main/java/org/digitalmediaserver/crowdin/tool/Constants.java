@@ -65,6 +65,24 @@ public class Constants {
 	/** The system property to use for proxy host */
 	public static final String HTTP_PROXY_HOST = "http.proxyHost";
 
+	/** The default maximum total number of pooled HTTP connections */
+	public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+	/** The default maximum number of pooled HTTP connections per route */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+
+	/** The default maximum HTTP connection keep-alive time in milliseconds */
+	public static final long DEFAULT_KEEP_ALIVE = 30000;
+
+	/** A {@link Pattern} that matches the delimiters in a list of language codes */
+	public static final Pattern LANGUAGES_DELIMITER = Pattern.compile("[,;\\s]+");
+
+	/** A {@link Pattern} that matches a valid crowdin language code */
+	public static final Pattern LANGUAGE_CODE = Pattern.compile("[A-Za-z0-9_-]+");
+
+	/** The maximum number of files crowdin accepts in a single request */
+	public static final int MAX_FILES_PER_REQUEST = 20;
+
 	/** A {@link Pattern} that matches semicolon {@code ";"} */
 	public static final Pattern SEMICOLON = Pattern.compile("\\s*;\\s*");
 
@@ -23,9 +23,11 @@ import static org.digitalmediaserver.crowdin.tool.Constants.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.http.HttpHost;
@@ -39,15 +41,20 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.settings.Server;
 import org.jdom2.Document;
-import org.jdom2.Element;
 import org.jdom2.JDOMException;
 
 
@@ -65,13 +72,65 @@ public class CrowdinAPI {
 	}
 
 	/**
-	 * Creates a new {@link CloseableHttpClient} instance.
+	 * Creates a new {@link CloseableHttpClient} instance using the default
+	 * connection pool settings.
 	 *
 	 * @return The new {@link CloseableHttpClient}.
 	 * @throws IOException If an error occurs during the operation.
 	 */
 	public static CloseableHttpClient createHTTPClient() throws IOException {
+		return createHTTPClient(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_KEEP_ALIVE, null);
+	}
+
+	/**
+	 * Creates a new {@link CloseableHttpClient} instance backed by a
+	 * {@link PoolingHttpClientConnectionManager}. Idle connections are kept
+	 * alive for at most {@code keepAlive} milliseconds, or less if the server
+	 * says so, and are evicted by a background thread when they expire.
+	 *
+	 * @param maxConnections the maximum total number of pooled connections.
+	 *            Values less than 1 means that the default is used.
+	 * @param maxConnectionsPerRoute the maximum number of pooled connections
+	 *            per route. Values less than 1 means that the default is used.
+	 * @param keepAlive the maximum time in milliseconds to keep idle
+	 *            connections alive. Values less than 1 means that the default
+	 *            is used.
+	 * @param retryStrategy the {@link RetryStrategy} to use for failed
+	 *            requests or {@code null} to disable retrying.
+	 * @return The new {@link CloseableHttpClient}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static CloseableHttpClient createHTTPClient(
+		int maxConnections,
+		int maxConnectionsPerRoute,
+		long keepAlive,
+		@Nullable RetryStrategy retryStrategy
+	) throws IOException {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections > 0 ? maxConnections : DEFAULT_MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(
+			maxConnectionsPerRoute > 0 ? maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE
+		);
+		final long maxKeepAlive = keepAlive > 0 ? keepAlive : DEFAULT_KEEP_ALIVE;
+
 		HttpClientBuilder clientBuilder = HttpClientBuilder.create();
+		clientBuilder.setConnectionManager(connectionManager);
+		clientBuilder.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+
+			@Override
+			public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+				long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return duration > 0 && duration < maxKeepAlive ? duration : maxKeepAlive;
+			}
+		});
+		clientBuilder.evictExpiredConnections();
+		clientBuilder.evictIdleConnections(maxKeepAlive, TimeUnit.MILLISECONDS);
+		if (retryStrategy == null) {
+			clientBuilder.disableAutomaticRetries();
+		} else {
+			clientBuilder.setRetryHandler(retryStrategy);
+			clientBuilder.setServiceUnavailableRetryStrategy(retryStrategy);
+		}
 		if (System.getProperty(HTTP_PROXY_HOST) != null) {
 			String host = System.getProperty(HTTP_PROXY_HOST);
 			String port = System.getProperty(HTTP_PROXY_PORT);
@@ -115,46 +174,117 @@ public class CrowdinAPI {
 	}
 
 	/**
-	 * Requests project information including all files and returns the files
-	 * element. Branch may be {@code null} in which case the root files
-	 * {@link Element} is returned.
+	 * Requests project information and returns the root or branch
+	 * {@link CrowdinItem}. Branch may be {@code null} in which case the root
+	 * {@link CrowdinItem} is returned.
 	 *
 	 * @param httpClient the {@link HttpClient} to use.
 	 * @param server the {@link Server} to use for crowdin credentials.
 	 * @param branch the branch name.
-	 * @param projectDetails the project details.
+	 * @param projectInfo the project information. If {@code null} or if it
+	 *            doesn't cover {@code branch}, the project information will be
+	 *            retrieved from crowdin.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return The relevant files {@link Element}.
+	 * @return The relevant root or branch {@link CrowdinItem}.
 	 * @throws IOException If an error occurs during the operation.
 	 */
-	@Nullable
-	public static Element getFiles(
+	@Nonnull
+	public static CrowdinItem getFiles(
 		@Nonnull HttpClient httpClient,
 		@Nonnull Server server,
 		@Nullable String branch,
-		@Nullable Document projectDetails,
+		@Nullable CrowdinProject projectInfo,
 		@Nullable Log logger
 	) throws IOException {
-		if (projectDetails == null) {
-			// Retrieve project informations
-			if (logger != null) {
-				logger.info("Retrieving crowdin project information");
-			}
-			projectDetails = requestPostDocument(httpClient, server, "info", null, null, true, logger);
+		if (projectInfo == null || !projectInfo.covers(branch)) {
+			projectInfo = getProjectInfo(httpClient, server, branch, true, logger);
 		}
 
 		// Get crowdin files
 		if (branch != null) {
-			Element branchElement = CrowdinFileSystem.getBranch(
-				projectDetails.getRootElement().getChild("files").getChildren(),
-				branch
-			);
-			if (branchElement == null || !CrowdinFileSystem.isBranch(branchElement)) {
+			CrowdinItem branchItem = CrowdinFileSystem.getBranch(projectInfo.getRoot(), branch, null);
+			if (branchItem == null) {
 				throw new IOException("Can't find branch \"" + branch + "\" in crowdin project information");
 			}
-			return branchElement.getChild("files");
+			return branchItem;
 		}
-		return projectDetails.getRootElement().getChild("files");
+		return projectInfo.getRoot();
+	}
+
+	/**
+	 * Requests project information using the {@code "info"} function and
+	 * parses the response as it is streamed, optionally pruning the file tree
+	 * to the specified branch.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 *            If {@code null}, all branches are pruned.
+	 * @param prune whether to prune the file tree.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The resulting {@link CrowdinProject}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public static CrowdinProject getProjectInfo(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nullable String branch,
+		boolean prune,
+		@Nullable Log logger
+	) throws IOException {
+		return getProjectInfo(httpClient, server, branch, prune, null, logger);
+	}
+
+	/**
+	 * Requests project information using the {@code "info"} function and
+	 * parses the response as it is streamed, optionally pruning the file tree
+	 * to the specified branch. If the connection fails while the response is
+	 * parsed, the request is repeated according to {@code retryStrategy}.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 *            If {@code null}, all branches are pruned.
+	 * @param prune whether to prune the file tree.
+	 * @param retryStrategy the {@link RetryStrategy} to use when reading the
+	 *            response fails or {@code null} to not retry.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The resulting {@link CrowdinProject}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public static CrowdinProject getProjectInfo(
+		@Nonnull final HttpClient httpClient,
+		@Nonnull final Server server,
+		@Nullable final String branch,
+		final boolean prune,
+		@Nullable RetryStrategy retryStrategy,
+		@Nullable final Log logger
+	) throws IOException {
+		if (logger != null) {
+			logger.info("Retrieving crowdin project information");
+		}
+		if (retryStrategy == null) {
+			retryStrategy = new RetryStrategy(0, 0L, 0L, logger);
+		}
+		return retryStrategy.execute("info", new RetryStrategy.BodyReader<CrowdinProject, IOException>() {
+
+			@Override
+			public HttpResponse request() throws IOException {
+				return requestPost(httpClient, server, "info", null, logger);
+			}
+
+			@Override
+			public CrowdinProject read(HttpResponse response) throws IOException {
+				if (logger != null) {
+					logger.debug("Return code : " + response.getStatusLine().getStatusCode());
+				}
+				try (InputStream responseBodyAsStream = response.getEntity().getContent()) {
+					return new ProjectInfoReader(prune, branch).read(responseBodyAsStream);
+				}
+			}
+		});
 	}
 
 	/**
@@ -178,43 +308,24 @@ public class CrowdinAPI {
 		@Nullable Map<String, String> parameters,
 		@Nullable Log logger
 	) throws IOException {
-		if (isBlank(method)) {
-			throw new IllegalArgumentException("method cannot be blank");
-		}
-		StringBuilder url = new StringBuilder(API_URL);
-		url.append(server.getUsername()).append("/").append(method);
-		boolean first = true;
-		if (parameters != null) {
-			for (Entry<String, String> parameter : parameters.entrySet()) {
-				url.append(first ? "?" : "&").append(parameter.getKey()).append("=").append(parameter.getValue());
-				first = false;
-			}
-		}
-		url.append(first ? "?" : "&").append("key=");
-		if (logger != null) {
-			logger.debug("Calling " + url + "<API Key>");
-		}
-		url.append(server.getPassword());
-
-		HttpGet getMethod = new HttpGet(url.toString());
-		HttpResponse response = null;
-		response = httpClient.execute(getMethod);
+		HttpResponse response = requestGet(httpClient, server, method, parameters, null, logger);
 
 		int returnCode = response.getStatusLine().getStatusCode();
 		if (logger != null) {
 			logger.debug("Return code: " + returnCode);
 		}
 		if (returnCode != 200) {
+			EntityUtils.consumeQuietly(response.getEntity());
 			throw new IOException("Failed to call API with return code " + returnCode);
 		}
 
 		Document document;
-		InputStream responseBodyAsStream;
-		responseBodyAsStream = response.getEntity().getContent();
-		try {
+		try (InputStream responseBodyAsStream = response.getEntity().getContent()) {
 			document = Constants.SAX_BUILDER.build(responseBodyAsStream);
 		} catch (JDOMException e) {
 			throw new IOException("Failed to parse API reponse: " + e.getMessage(), e);
+		} finally {
+			EntityUtils.consumeQuietly(response.getEntity());
 		}
 
 		if (!document.getRootElement().getName().equals("success")) {
@@ -225,6 +336,64 @@ public class CrowdinAPI {
 		return document;
 	}
 
+	/**
+	 * Makes a GET request to the crowdin API and returns the
+	 * {@link HttpResponse}.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @param headers the {@link Map} of additional request headers to use.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The resulting {@link HttpResponse}.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws IllegalArgumentException If {@code method} is blank.
+	 */
+	@Nonnull
+	public static HttpResponse requestGet(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nonnull String method,
+		@Nullable Map<String, String> parameters,
+		@Nullable Map<String, String> headers,
+		@Nullable Log logger
+	) throws IOException {
+		if (isBlank(method)) {
+			throw new IllegalArgumentException("method cannot be blank");
+		}
+		URIBuilder uriBuilder;
+		try {
+			uriBuilder = new URIBuilder(API_URL + server.getUsername() + "/" + method);
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid crowdin API method \"" + method + "\": " + e.getMessage(), e);
+		}
+		boolean hasParameters = false;
+		if (parameters != null) {
+			for (Entry<String, String> parameter : parameters.entrySet()) {
+				uriBuilder.addParameter(parameter.getKey(), parameter.getValue());
+				hasParameters = true;
+			}
+		}
+		if (logger != null) {
+			logger.debug("Calling " + uriBuilder + (hasParameters ? "&" : "?") + "key=<API Key>");
+		}
+		uriBuilder.addParameter("key", server.getPassword());
+
+		HttpGet getMethod;
+		try {
+			getMethod = new HttpGet(uriBuilder.build());
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid crowdin API request: " + e.getMessage(), e);
+		}
+		if (headers != null) {
+			for (Entry<String, String> header : headers.entrySet()) {
+				getMethod.setHeader(header.getKey(), header.getValue());
+			}
+		}
+		return httpClient.execute(getMethod);
+	}
+
 	/**
 	 * Makes a POST request to the crowdin API and returns the result as a
 	 * {@link Document}.
@@ -284,13 +453,12 @@ public class CrowdinAPI {
 		boolean mustSucceed,
 		@Nullable Log logger
 	) throws IOException {
-		try {
-			HttpResponse response = requestPost(httpClient, server, method, parameters, files, titles, patterns, logger);
+		HttpResponse response = requestPost(httpClient, server, method, parameters, files, titles, patterns, logger);
+		try (InputStream responseBodyAsStream = response.getEntity().getContent()) {
 			int returnCode = response.getStatusLine().getStatusCode();
 			if (logger != null) {
 				logger.debug("Return code : " + returnCode);
 			}
-			InputStream responseBodyAsStream = response.getEntity().getContent();
 			Document document = SAX_BUILDER.build(responseBodyAsStream);
 			if (mustSucceed && document.getRootElement().getName().equals("error")) {
 				String code = document.getRootElement().getChildTextNormalize("code");
@@ -300,6 +468,8 @@ public class CrowdinAPI {
 			return document;
 		} catch (JDOMException e) {
 			throw new IOException("Failed to parse API reponse: " + e.getMessage(), e);
+		} finally {
+			EntityUtils.consumeQuietly(response.getEntity());
 		}
 	}
 
@@ -398,6 +568,18 @@ public class CrowdinAPI {
 
 		postMethod.setEntity(reqEntityBuilder.build());
 
-		return httpClient.execute(postMethod);
+		if (!ExportRecord.INVALIDATING_METHODS.contains(method)) {
+			return httpClient.execute(postMethod);
+		}
+		try {
+			return httpClient.execute(postMethod);
+		} finally {
+			// Invalidate even if the call failed, since it might still have taken effect
+			if (ProjectCache.MUTATING_METHODS.contains(method)) {
+				ProjectCache.invalidate(server.getUsername(), logger);
+				SessionContext.invalidateProjectInfo(server.getUsername());
+			}
+			ExportRecord.invalidate(server.getUsername(), logger);
+		}
 	}
 }
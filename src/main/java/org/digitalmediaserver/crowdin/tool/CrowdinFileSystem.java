@@ -24,24 +24,31 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Future;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.http.client.HttpClient;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.settings.Server;
 import org.digitalmediaserver.crowdin.configuration.TranslationFileSet;
-import org.jdom2.Element;
 
 
 /**
  * This is a utility class for working with the "crowdin file system". Most
- * methods operates on a cache of {@link Element}s retrieved by using the
- * {@code "info"} function in the crowdin API.
+ * methods operates on a cache of {@link CrowdinItem}s retrieved by using the
+ * {@code "info"} function in the crowdin API. Path lookups are resolved
+ * using the path index of the {@link CrowdinProject} the items belong to.
  *
  * @author Nadahar
  */
@@ -54,69 +61,69 @@ public class CrowdinFileSystem {
 	}
 
 	/**
-	 * Checks if the given {@link Element} contains the specified file.
+	 * Checks if the given {@link CrowdinItem} contains the specified file.
 	 *
-	 * @param currentElement the {@link Element} to check.
+	 * @param currentItem the {@link CrowdinItem} to check.
 	 * @param fileName the file name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return {@code true} if the file exists in {@code files}, {@code false}
-	 *         otherwise.
+	 * @return {@code true} if the file exists in {@code currentItem},
+	 *         {@code false} otherwise.
 	 */
 	public static boolean containsFile(
-		@Nullable Element currentElement,
+		@Nullable CrowdinItem currentItem,
 		@Nullable String fileName,
 		@Nullable Log logger
 	) {
-		return containsFile(currentElement, fileName, EnumSet.of(ItemType.FILE), logger);
+		return containsFile(currentItem, fileName, EnumSet.of(ItemType.FILE), logger);
 	}
 
 	/**
-	 * Checks if the given {@link Element} contains the specified folder.
+	 * Checks if the given {@link CrowdinItem} contains the specified folder.
 	 *
-	 * @param currentElement the {@link Element} to check.
+	 * @param currentItem the {@link CrowdinItem} to check.
 	 * @param folderName the folder name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return {@code true} if the folder exists in {@code files}, {@code false}
-	 *         otherwise.
+	 * @return {@code true} if the folder exists in {@code currentItem},
+	 *         {@code false} otherwise.
 	 */
 	public static boolean containsFolder(
-		@Nullable Element currentElement,
+		@Nullable CrowdinItem currentItem,
 		@Nullable String folderName,
 		@Nullable Log logger
 	) {
-		return containsFile(currentElement, folderName, EnumSet.of(ItemType.FOLDER), logger);
+		return containsFile(currentItem, folderName, EnumSet.of(ItemType.FOLDER), logger);
 	}
 
 	/**
-	 * Checks if the given {@link Element} contains the specified branch.
+	 * Checks if the given {@link CrowdinItem} contains the specified branch.
 	 *
-	 * @param currentElement the {@link Element} to check.
+	 * @param currentItem the {@link CrowdinItem} to check.
 	 * @param branchName the file name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return {@code true} if the branch exists in {@code files}, {@code false}
-	 *         otherwise.
+	 * @return {@code true} if the branch exists in {@code currentItem},
+	 *         {@code false} otherwise.
 	 */
 	public static boolean containsBranch(
-		@Nullable Element currentElement,
+		@Nullable CrowdinItem currentItem,
 		@Nullable String branchName,
 		@Nullable Log logger
 	) {
-		return containsFile(currentElement, branchName, EnumSet.of(ItemType.BRANCH), logger);
+		return containsFile(currentItem, branchName, EnumSet.of(ItemType.BRANCH), logger);
 	}
 
 	/**
-	 * Checks if the given {@link Element} contains the specified file, folder
-	 * or branch.
+	 * Checks if the given {@link CrowdinItem} contains the specified file,
+	 * folder or branch.
 	 *
-	 * @param currentElement the {@link Element} to check.
+	 * @param currentItem the {@link CrowdinItem} to check.
 	 * @param name the file name to look for.
 	 * @param filter the {@link ItemType}s to look for.
 	 * @param logger the {@link Log} instance to use for logging.
 	 * @return {@code true} if the file, folder or branch exists in
-	 *         {@code files}, {@code false} otherwise.
+	 *         {@code currentItem}, {@code false} otherwise.
 	 */
 	public static boolean containsFile(
-		@Nullable Element currentElement,
+		@Nullable CrowdinItem currentItem,
 		@Nullable String name,
 		@Nullable EnumSet<ItemType> filter,
 		@Nullable Log logger
@@ -124,103 +131,106 @@ public class CrowdinFileSystem {
 		if (logger != null) {
 			logger.debug("Checking if crowdin project contains " + name);
 		}
-		Element file = getFile(currentElement, name, filter, logger);
+		CrowdinItem file = getFile(currentItem, name, filter, logger);
 		return file != null;
 	}
 
 	/**
-	 * Extracts the folder {@link Element} with the specified name.
+	 * Extracts the folder {@link CrowdinItem} with the specified name.
 	 *
-	 * @param items the {@link List} of {@link Element}s to extract from.
+	 * @param items the {@link Collection} of {@link CrowdinItem}s to extract from.
 	 * @param folderName the folder name.
-	 * @return The matching {@link Element} or {@code null}.
+	 * @return The matching {@link CrowdinItem} or {@code null}.
 	 */
 	@Nullable
-	public static Element getFolder(@Nullable List<Element> items, @Nullable String folderName) {
+	public static CrowdinItem getFolder(@Nullable Collection<CrowdinItem> items, @Nullable String folderName) {
 		return getFile(items, folderName, EnumSet.of(ItemType.FOLDER));
 	}
 
 	/**
-	 * Extracts the specified folder {@link Element} from {@code files}.
+	 * Extracts the specified folder {@link CrowdinItem} from
+	 * {@code currentItem}.
 	 *
-	 * @param currentElement the {@link Element} to look in.
+	 * @param currentItem the {@link CrowdinItem} to look in.
 	 * @param folderName the folder name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return The requested {@link Element} or {@code null} if it doesn't
+	 * @return The requested {@link CrowdinItem} or {@code null} if it doesn't
 	 *         exist.
 	 */
 	@Nullable
-	public static Element getFolder(
-		@Nullable Element currentElement,
+	public static CrowdinItem getFolder(
+		@Nullable CrowdinItem currentItem,
 		@Nullable String folderName,
 		@Nullable Log logger
 	) {
-		return getFile(currentElement, folderName, EnumSet.of(ItemType.FOLDER), logger);
+		return getFile(currentItem, folderName, EnumSet.of(ItemType.FOLDER), logger);
 	}
 
 	/**
-	 * Extracts the branch {@link Element} with the given name.
+	 * Extracts the branch {@link CrowdinItem} with the given name.
 	 *
-	 * @param items the {@link List} of {@link Element}s to extract from.
+	 * @param items the {@link Collection} of {@link CrowdinItem}s to extract from.
 	 * @param branchName the branch name.
-	 * @return The matching {@link Element} or {@code null}.
+	 * @return The matching {@link CrowdinItem} or {@code null}.
 	 */
 	@Nullable
-	public static Element getBranch(@Nullable List<Element> items, @Nullable String branchName) {
+	public static CrowdinItem getBranch(@Nullable Collection<CrowdinItem> items, @Nullable String branchName) {
 		return getFile(items, branchName, EnumSet.of(ItemType.BRANCH));
 	}
 
 	/**
-	 * Extracts the specified branch {@link Element} from {@code files}.
+	 * Extracts the specified branch {@link CrowdinItem} from
+	 * {@code currentItem}.
 	 *
-	 * @param currentElement the {@link Element} to look in.
+	 * @param currentItem the {@link CrowdinItem} to look in.
 	 * @param branchName the branch name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return The requested {@link Element} or {@code null} if it doesn't
+	 * @return The requested {@link CrowdinItem} or {@code null} if it doesn't
 	 *         exist.
 	 */
 	@Nullable
-	public static Element getBranch(
-		@Nullable Element currentElement,
+	public static CrowdinItem getBranch(
+		@Nullable CrowdinItem currentItem,
 		@Nullable String branchName,
 		@Nullable Log logger
 	) {
-		return getFile(currentElement, branchName, EnumSet.of(ItemType.BRANCH), logger);
+		return getFile(currentItem, branchName, EnumSet.of(ItemType.BRANCH), logger);
 	}
 
 	/**
-	 * Extracts the file {@link Element} with the given name.
+	 * Extracts the file {@link CrowdinItem} with the given name.
 	 *
-	 * @param items the {@link List} of {@link Element}s to extract from.
+	 * @param items the {@link Collection} of {@link CrowdinItem}s to extract from.
 	 * @param fileName the file name.
-	 * @return The matching {@link Element} or {@code null}.
+	 * @return The matching {@link CrowdinItem} or {@code null}.
 	 */
 	@Nullable
-	public static Element getFile(@Nullable List<Element> items, @Nullable String fileName) {
+	public static CrowdinItem getFile(@Nullable Collection<CrowdinItem> items, @Nullable String fileName) {
 		return getFile(items, fileName, EnumSet.of(ItemType.FILE));
 	}
 
 	/**
-	 * Extracts the file, folder or branch {@link Element} with the specified name.
+	 * Extracts the file, folder or branch {@link CrowdinItem} with the
+	 * specified name.
 	 *
-	 * @param items the {@link List} of {@link Element}s to extract from.
+	 * @param items the {@link Collection} of {@link CrowdinItem}s to extract from.
 	 * @param name the file, branch or folder name.
 	 * @param filter the {@link ItemType}s to look for.
-	 * @return The matching {@link Element} or {@code null}.
+	 * @return The matching {@link CrowdinItem} or {@code null}.
 	 */
 	@Nullable
-	public static Element getFile(
-		@Nullable List<Element> items,
+	public static CrowdinItem getFile(
+		@Nullable Collection<CrowdinItem> items,
 		@Nullable String name,
 		@Nullable EnumSet<ItemType> filter
 	) {
 		if (items == null || items.isEmpty() || isBlank(name)) {
 			return null;
 		}
-		for (Element item : items) {
-			if (name.equals(item.getChildText("name"))) {
+		for (CrowdinItem item : items) {
+			if (name.equals(item.getName())) {
 				if (filter != null && !filter.isEmpty()) {
-					ItemType itemType = ItemType.typeOf(item);
+					ItemType itemType = item.getType();
 					if (itemType == null) {
 						return null;
 					}
@@ -233,92 +243,78 @@ public class CrowdinFileSystem {
 	}
 
 	/**
-	 * Extracts the specified file {@link Element} from {@code files}.
+	 * Extracts the specified file {@link CrowdinItem} from
+	 * {@code currentItem}.
 	 *
-	 * @param currentElement the {@link Element} to look in.
+	 * @param currentItem the {@link CrowdinItem} to look in.
 	 * @param fileName the file name to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return The requested {@link Element} or {@code null} if it doesn't
+	 * @return The requested {@link CrowdinItem} or {@code null} if it doesn't
 	 *         exist.
 	 */
 	@Nullable
-	public static Element getFile(
-		@Nullable Element currentElement,
+	public static CrowdinItem getFile(
+		@Nullable CrowdinItem currentItem,
 		@Nullable String fileName,
 		@Nullable Log logger
 	) {
-		return getFile(currentElement, fileName, EnumSet.of(ItemType.FILE), logger);
+		return getFile(currentItem, fileName, EnumSet.of(ItemType.FILE), logger);
 	}
 
 	/**
-	 * Extracts the specified file, folder or branch {@link Element} from
-	 * {@code files}.
+	 * Extracts the specified file, folder or branch {@link CrowdinItem} from
+	 * {@code currentItem}.
 	 *
-	 * @param currentElement the {@link Element} to look in.
+	 * @param currentItem the {@link CrowdinItem} to look in.
 	 * @param name the file name to look for.
 	 * @param filter the {@link ItemType}s to look for.
 	 * @param logger the {@link Log} instance to use for logging.
-	 * @return The requested {@link Element} or {@code null} if it doesn't
+	 * @return The requested {@link CrowdinItem} or {@code null} if it doesn't
 	 *         exist.
 	 */
 	@Nullable
-	public static Element getFile(
-		@Nullable Element currentElement,
+	public static CrowdinItem getFile(
+		@Nullable CrowdinItem currentItem,
 		@Nullable String name,
 		@Nullable EnumSet<ItemType> filter,
 		@Nullable Log logger
 	) {
-		if (currentElement == null || isBlank(name)) {
+		if (currentItem == null || isBlank(name)) {
 			return null;
 		}
-		if (!"files".equals(currentElement.getName())) {
-			currentElement = currentElement.getChild("files");
-			if (currentElement == null) {
-				return null;
-			}
-		}
 		if (logger != null) {
 			logger.debug("Looking for \"" + name + "\" in crowdin project");
 		}
-		List<Element> items = currentElement.getChildren("item");
-		int slash = name.indexOf('/');
-		if (slash == -1) {
-			for (Element item : items) {
-				if (name.equals(item.getChildText("name"))) {
-					ItemType itemType = ItemType.typeOf(item);
-					if (filter != null && !filter.isEmpty()) {
-						if (itemType == null) {
-							if (logger != null) {
-								logger.warn(
-									"Found \"" + name + "\" with an unknown type, but it isn't " +
-									(filter.size() == 1 ? "the expected type: " : "among the expected types: ") + filter
-								);
-							}
-							return null;
-						}
-						if (!filter.contains(itemType)) {
-							if (logger != null) {
-								logger.warn(
-									"Found " + itemType.toString().toLowerCase(Locale.ROOT) + " \"" + name + "\" but it isn't " +
-									(filter.size() == 1 ? "the expected type: " : "among the expected types: ") + filter
-								);
-							}
-							return null;
-						}
+		CrowdinItem item = resolve(currentItem, name);
+		if (item != null) {
+			ItemType itemType = item.getType();
+			if (filter != null && !filter.isEmpty()) {
+				if (itemType == null) {
+					if (logger != null) {
+						logger.warn(
+							"Found \"" + name + "\" with an unknown type, but it isn't " +
+							(filter.size() == 1 ? "the expected type: " : "among the expected types: ") + filter
+						);
 					}
+					return null;
+				}
+				if (!filter.contains(itemType)) {
 					if (logger != null) {
-						logger.debug("Found " + itemType.toString().toLowerCase(Locale.ROOT) + " \"" + name + "\"");
+						logger.warn(
+							"Found " + itemType.toString().toLowerCase(Locale.ROOT) + " \"" + name + "\" but it isn't " +
+							(filter.size() == 1 ? "the expected type: " : "among the expected types: ") + filter
+						);
 					}
-					return item;
+					return null;
 				}
 			}
-		} else {
-			String folderName = name.substring(0, slash);
-			String subPath = name.substring(slash + 1);
-			Element folderElement = getFile(items, folderName, EnumSet.of(ItemType.BRANCH, ItemType.FOLDER));
-			if (folderElement != null) {
-				return getFile(folderElement, subPath, filter, logger);
+			if (logger != null) {
+				logger.debug(
+					"Found " + (itemType == null ? "item" : itemType.toString().toLowerCase(Locale.ROOT)) +
+					" \"" + name + "\""
+				);
 			}
+			return item;
 		}
 
 		if (logger != null) {
@@ -334,75 +330,95 @@ public class CrowdinFileSystem {
 	}
 
 	/**
-	 * Checks whether the specified {@link Element} is a crowdin file.
+	 * Resolves the specified path relative to {@code currentItem}. If
+	 * {@code currentItem} is indexed by a {@link CrowdinProject}, the lookup
+	 * is done in the index. Otherwise, the tree is walked one child lookup per
+	 * path segment.
 	 *
-	 * @param item the {@link Element} to check.
+	 * @param currentItem the {@link CrowdinItem} to resolve from.
+	 * @param path the relative path to resolve.
+	 * @return The resolved {@link CrowdinItem} or {@code null} if it doesn't
+	 *         exist.
+	 */
+	@Nullable
+	protected static CrowdinItem resolve(@Nonnull CrowdinItem currentItem, @Nonnull String path) {
+		path = CrowdinProject.normalizePath(path);
+		if (path.isEmpty()) {
+			return null;
+		}
+		CrowdinProject project = currentItem.getProject();
+		if (project != null) {
+			String basePath = currentItem.getPath();
+			return project.index.get(basePath.isEmpty() ? path : basePath + "/" + path);
+		}
+		CrowdinItem item = currentItem;
+		int start = 0;
+		int slash;
+		while (item != null && (slash = path.indexOf('/', start)) != -1) {
+			item = item.getChild(path.substring(start, slash));
+			if (isFile(item)) {
+				return null;
+			}
+			start = slash + 1;
+		}
+		return item == null ? null : item.getChild(path.substring(start));
+	}
+
+	/**
+	 * Checks whether the specified {@link CrowdinItem} is a crowdin file.
+	 *
+	 * @param item the {@link CrowdinItem} to check.
 	 * @return {@code true} if {@code item} is a crowdin file, {@code false}
 	 *         otherwise.
 	 */
-	public static boolean isFile(@Nullable Element item) {
-		return ItemType.typeOf(item) == ItemType.FILE;
+	public static boolean isFile(@Nullable CrowdinItem item) {
+		return item != null && item.getType() == ItemType.FILE;
 	}
 
 	/**
-	 * Checks whether the specified  {@link Element} is a crowdin folder.
+	 * Checks whether the specified {@link CrowdinItem} is a crowdin folder.
 	 *
-	 * @param item the {@link Element} to check.
+	 * @param item the {@link CrowdinItem} to check.
 	 * @return {@code true} if {@code item} is a crowdin folder, {@code false}
 	 *         otherwise.
 	 */
-	public static boolean isFolder(@Nullable Element item) {
-		return ItemType.typeOf(item) == ItemType.FOLDER;
+	public static boolean isFolder(@Nullable CrowdinItem item) {
+		return item != null && item.getType() == ItemType.FOLDER;
 	}
 
 	/**
-	 * Checks whether the specified {@link Element} is a crowdin branch.
+	 * Checks whether the specified {@link CrowdinItem} is a crowdin branch.
 	 *
-	 * @param item the {@link Element} to check.
+	 * @param item the {@link CrowdinItem} to check.
 	 * @return {@code true} if {@code item} is a crowdin branch, {@code false}
 	 *         otherwise.
 	 */
-	public static boolean isBranch(@Nullable Element item) {
-		return ItemType.typeOf(item) == ItemType.BRANCH;
+	public static boolean isBranch(@Nullable CrowdinItem item) {
+		return item != null && item.getType() == ItemType.BRANCH;
 	}
 
 	/**
-	 * Checks whether the specified {@link Element} is the crowdin
+	 * Checks whether the specified {@link CrowdinItem} is the crowdin
 	 * "root folder".
 	 *
-	 * @param item the {@link Element} to check.
+	 * @param item the {@link CrowdinItem} to check.
 	 * @return {@code true} if {@code item} is the crowdin "root folder",
 	 *         {@code false} otherwise.
 	 */
-	public static boolean isRoot(@Nullable Element item) {
-		if (item == null) {
-			return false;
-		}
-		if ("files".equals(item.getName())) {
-			item = item.getParentElement();
-		}
-		return item == null ? false : "info".equals(item.getName());
+	public static boolean isRoot(@Nullable CrowdinItem item) {
+		return item != null && item.isRoot();
 	}
 
 	/**
 	 * Gets the parent file or folder for the specified crowdin file or folder
-	 * item. Handles the fact that there's two levels between each item because
-	 * all children is wrapped in a {@code <files>} {@link Element}.
+	 * item.
 	 *
-	 * @param item the {@link Element} for which to get the parent;
+	 * @param item the {@link CrowdinItem} for which to get the parent;
 	 * @return The parent file or folder item.
 	 */
 	@Nullable
-	public static Element getParent(@Nullable Element item) {
-		if (item == null) {
-			return null;
-		}
-		if ("files".equals(item.getName())) {
-			item = item.getParentElement();
-		}
-		item = item == null ? null : item.getParentElement();
-		item = item == null ? null : item.getParentElement();
-		return item;
+	public static CrowdinItem getParent(@Nullable CrowdinItem item) {
+		return item == null ? null : item.getParent();
 	}
 
 	/**
@@ -445,78 +461,264 @@ public class CrowdinFileSystem {
 	 *
 	 * @param httpClient the {@link HttpClient} to use.
 	 * @param server the {@link Server} to use for crowdin credentials.
-	 * @param currentElement the file or branch item to resolve {@code path}
-	 *            from.
+	 * @param currentItem the root, folder or branch item to resolve
+	 *            {@code path} from.
+	 * @param path the path to make sure exists relative to
+	 *            {@code currentItem}.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The target folder.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public static CrowdinItem createFolders(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nonnull CrowdinItem currentItem,
+		String path,
+		@Nullable Log logger
+	) throws IOException {
+		return createFolders(httpClient, server, currentItem, path, false, logger);
+	}
+
+	/**
+	 * Creates folders on crowdin as needed until the specified path exists.
+	 * Created folders are added to the file tree of {@code currentItem}, so
+	 * that it stays up to date without requesting the project information
+	 * again.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param currentItem the root, folder or branch item to resolve
+	 *            {@code path} from.
 	 * @param path the path to make sure exists relative to
-	 *            {@code currentElement}.
+	 *            {@code currentItem}.
+	 * @param verify if {@code true} and any folders were created, the project
+	 *            information is requested once when done to verify that the
+	 *            target folder exists.
 	 * @param logger the {@link Log} instance to use for logging.
 	 * @return The target folder.
 	 * @throws IOException If an error occurs during the operation.
 	 */
 	@Nonnull
-	public static Element createFolders(
+	public static CrowdinItem createFolders(
 		@Nonnull HttpClient httpClient,
 		@Nonnull Server server,
-		@Nonnull Element currentElement,
+		@Nonnull CrowdinItem currentItem,
 		String path,
+		boolean verify,
 		@Nullable Log logger
 	) throws IOException {
 		if (isBlank(path)) {
-			return currentElement;
+			return currentItem;
 		}
-		if (currentElement != null && "files".equals(currentElement.getName())) {
-			currentElement = currentElement.getParentElement();
+		if (currentItem == null) {
+			throw new IllegalArgumentException("currentItem is null");
 		}
-		if (currentElement == null) {
-			throw new IllegalArgumentException("currentElement is null or invalid");
+		if (!isRoot(currentItem) && !isFolder(currentItem) && !isBranch(currentItem)) {
+			throw new IllegalArgumentException("currentItem must be the root, a branch or a folder");
 		}
-		if (!isFolder(currentElement) && !isBranch(currentElement)) {
-			throw new IllegalArgumentException("currentElement must be a branch or folder");
+
+		String[] folders = CrowdinProject.normalizePath(path).split("/");
+		boolean created = false;
+		for (String folder : folders) {
+			CrowdinItem item = currentItem.getChild(folder);
+			if (item == null) {
+				String folderPath = currentItem.isRoot() ? folder : currentItem.getPath() + "/" + folder;
+				createFolder(httpClient, server, folderPath, logger);
+				created = true;
+				CrowdinProject project = currentItem.getProject();
+				if (project != null) {
+					item = project.addItem(currentItem, ItemType.FOLDER, folder, null);
+				} else {
+					item = new CrowdinItem(ItemType.FOLDER, folder, null);
+					currentItem.addChild(item);
+				}
+			} else if (isFile(item)) {
+				throw new IOException(
+					"Can't create folder \"" + item.getPath() + "\" on crowdin because a file with the same name exists"
+				);
+			}
+			currentItem = item;
 		}
 
-		String[] folders = path.split("\\\\|/");
+		if (verify && created) {
+			verifyFolder(httpClient, server, currentItem, logger);
+		}
+		return currentItem;
+	}
 
-		List<String> parents = new ArrayList<>();
-		Element parentElement = currentElement;
-		while (parentElement != null && !isRoot(parentElement)) {
-			parents.add(0, parentElement.getChildText("name"));
-			parentElement = getParent(parentElement);
+	/**
+	 * Creates all missing folders needed for the specified paths to exist in
+	 * one go. The missing folders are determined from the file tree of
+	 * {@code currentItem} and are created one level at a time, where all the
+	 * folders at the same level are created concurrently. Created folders are
+	 * added to the file tree of {@code currentItem}.
+	 *
+	 * @param api the {@link AsyncCrowdinAPI} to use.
+	 * @param currentItem the root, folder or branch item to resolve
+	 *            {@code paths} from.
+	 * @param paths the paths to make sure exist relative to
+	 *            {@code currentItem}. Blank paths are ignored.
+	 * @param verify if {@code true} and any folders were created, the project
+	 *            information is requested once when done to verify that the
+	 *            created folders exist.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The number of created folders.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static int createFolders(
+		@Nonnull AsyncCrowdinAPI api,
+		@Nonnull CrowdinItem currentItem,
+		@Nonnull Collection<String> paths,
+		boolean verify,
+		@Nullable Log logger
+	) throws IOException {
+		if (!isRoot(currentItem) && !isFolder(currentItem) && !isBranch(currentItem)) {
+			throw new IllegalArgumentException("currentItem must be the root, a branch or a folder");
 		}
 
-		StringBuilder currentFolder = new StringBuilder();
-		for (int i = 0; i < parents.size(); i++) {
-			if (i > 0) {
-				currentFolder.append("/");
+		// Plan the missing folders by level, relative to currentItem
+		List<Set<String>> levels = new ArrayList<>();
+		for (String path : paths) {
+			if (isBlank(path)) {
+				continue;
+			}
+			String[] folders = CrowdinProject.normalizePath(path).split("/");
+			StringBuilder sb = new StringBuilder();
+			boolean missing = false;
+			for (int i = 0; i < folders.length; i++) {
+				if (sb.length() > 0) {
+					sb.append('/');
+				}
+				sb.append(folders[i]);
+				String relativePath = sb.toString();
+				if (!missing) {
+					CrowdinItem item = resolve(currentItem, relativePath);
+					if (isFile(item)) {
+						throw new IOException(
+							"Can't create folder \"" + item.getPath() + "\" on crowdin because a file with the same name exists"
+						);
+					}
+					missing = item == null;
+				}
+				if (missing) {
+					while (levels.size() <= i) {
+						levels.add(new LinkedHashSet<String>());
+					}
+					levels.get(i).add(relativePath);
+				}
 			}
-			currentFolder.append(parents.get(i));
+		}
+		if (levels.isEmpty()) {
+			return 0;
 		}
 
-		for (int i = 0; i < folders.length; i++) {
-			String folder = folders[i];
-			if (currentFolder.length() > 0) {
-				currentFolder.append("/");
+		String basePath = currentItem.getPath();
+		List<CrowdinItem> created = new ArrayList<>();
+		for (Set<String> level : levels) {
+			Map<String, Future<Void>> futures = new LinkedHashMap<>();
+			for (String relativePath : level) {
+				futures.put(relativePath, api.createFolder(basePath.isEmpty() ? relativePath : basePath + "/" + relativePath));
 			}
-			currentFolder.append(folder);
-			if (containsFile(currentElement, folder, EnumSet.of(ItemType.BRANCH, ItemType.FOLDER), logger)) {
-				currentElement = getFile(currentElement, folder, EnumSet.of(ItemType.BRANCH, ItemType.FOLDER), null);
-			} else {
-				createFolder(httpClient, server, currentFolder.toString(), logger);
-				Element rootFilesElement = getFiles(httpClient, server, null, null, null);
-				currentElement = getFile(
-					rootFilesElement,
-					currentFolder.toString(),
-					EnumSet.of(ItemType.BRANCH, ItemType.FOLDER),
-					null
-				);
+
+			// Wait for all, so that the tree reflects every successful creation
+			IOException exception = null;
+			for (Entry<String, Future<Void>> entry : futures.entrySet()) {
+				try {
+					AsyncCrowdinAPI.get(entry.getValue());
+				} catch (IOException e) {
+					if (exception == null) {
+						exception = e;
+					}
+					continue;
+				}
+				String relativePath = entry.getKey();
+				int slash = relativePath.lastIndexOf('/');
+				CrowdinItem parent = slash < 0 ? currentItem : resolve(currentItem, relativePath.substring(0, slash));
+				if (parent == null) {
+					throw new IOException("Internal error, couldn't find the parent folder of \"" + relativePath + "\"");
+				}
+				String folderName = relativePath.substring(slash + 1);
+				CrowdinProject project = parent.getProject();
+				CrowdinItem item;
+				if (project != null) {
+					item = project.addItem(parent, ItemType.FOLDER, folderName, null);
+				} else {
+					item = new CrowdinItem(ItemType.FOLDER, folderName, null);
+					parent.addChild(item);
+				}
+				created.add(item);
 			}
-			if (currentElement == null || isFile(currentElement)) {
-				throw new IOException(
-					"Internal error, couldn't find recently created branch or folder \"" +
-					currentFolder.toString() + "\""
-				);
+			if (exception != null) {
+				throw exception;
+			}
+		}
+
+		if (verify) {
+			verifyFolders(api.httpClient, api.server, created, logger);
+		}
+		return created.size();
+	}
+
+	/**
+	 * Verifies that the specified folder exists on crowdin by requesting the
+	 * project information, pruned to the relevant branch.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param folder the folder or branch {@link CrowdinItem} to verify.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @throws IOException If an error occurs during the operation or if the
+	 *             folder doesn't exist.
+	 */
+	public static void verifyFolder(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nonnull CrowdinItem folder,
+		@Nullable Log logger
+	) throws IOException {
+		verifyFolders(httpClient, server, Collections.singletonList(folder), logger);
+	}
+
+	/**
+	 * Verifies that the specified folders exist on crowdin by requesting the
+	 * project information once, pruned to the relevant branch. All the
+	 * folders must belong to the same branch or to none.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param folders the folder or branch {@link CrowdinItem}s to verify.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @throws IOException If an error occurs during the operation or if any
+	 *             of the folders don't exist.
+	 */
+	public static void verifyFolders(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nonnull Collection<CrowdinItem> folders,
+		@Nullable Log logger
+	) throws IOException {
+		if (folders.isEmpty()) {
+			return;
+		}
+
+		// Find the branch, if any, so that the project information can be pruned
+		String branch = null;
+		for (CrowdinItem item = folders.iterator().next(); item != null; item = item.getParent()) {
+			if (isBranch(item)) {
+				branch = item.getName();
+			}
+		}
+		if (logger != null) {
+			logger.debug("Verifying that " + folders.size() + " folder(s) exist on crowdin");
+		}
+		CrowdinProject project = getProjectInfo(httpClient, server, branch, true, null);
+		for (CrowdinItem folder : folders) {
+			CrowdinItem item = getFile(project.getRoot(), folder.getPath(), EnumSet.of(ItemType.BRANCH, ItemType.FOLDER), null);
+			if (item == null) {
+				throw new IOException("Couldn't find recently created folder \"" + folder.getPath() + "\" on crowdin");
 			}
 		}
-		return currentElement;
 	}
 
 	/**
@@ -621,25 +823,18 @@ public class CrowdinFileSystem {
 		FOLDER;
 
 		/**
-		 * Returns the {@link ItemType} of the specified crowdin item or
-		 * {@code null}.
+		 * Returns the {@link ItemType} for the specified crowdin
+		 * {@code node_type} value or {@code null}.
 		 *
-		 * @param item the item whose {@link ItemType} to find.
+		 * @param nodeType the crowdin {@code node_type} value.
 		 * @return The {@link ItemType} or {@code null}.
 		 */
 		@Nullable
-		public static ItemType typeOf(@Nullable Element item) {
-			if (item != null && "files".equals(item.getName())) {
-				item = item.getParentElement();
-			}
-			if (item == null) {
-				return null;
-			}
-			String nodeType = item.getChildText("node_type");
+		public static ItemType typeOf(@Nullable String nodeType) {
 			if (nodeType == null) {
 				return null;
 			}
-			switch (nodeType) {
+			switch (nodeType.trim()) {
 				case "branch":
 					return BRANCH;
 				case "directory":
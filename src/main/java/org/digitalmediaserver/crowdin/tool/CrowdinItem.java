@@ -0,0 +1,203 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.ItemType;
+
+
+/**
+ * This class represents a file, folder or branch in the "crowdin file system",
+ * or the root of the crowdin project. Only the information needed by this
+ * plugin is kept.
+ *
+ * @author Nadahar
+ */
+public class CrowdinItem {
+
+	/** The {@link ItemType} or {@code null} if unknown or root */
+	@Nullable
+	protected ItemType type;
+
+	/** The name or {@code null} if root */
+	@Nullable
+	protected String name;
+
+	/** The crowdin id or {@code null} if unknown */
+	@Nullable
+	protected String id;
+
+	/** The parent or {@code null} if root */
+	@Nullable
+	protected CrowdinItem parent;
+
+	/** The children by name or {@code null} if none have been added */
+	@Nullable
+	protected Map<String, CrowdinItem> children;
+
+	/** The {@link CrowdinProject} whose index this belongs to */
+	@Nullable
+	protected CrowdinProject project;
+
+	/** The cached path */
+	@Nullable
+	protected String path;
+
+	/**
+	 * Creates a new empty instance.
+	 */
+	protected CrowdinItem() {
+	}
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param type the {@link ItemType}.
+	 * @param name the name.
+	 * @param id the crowdin id.
+	 */
+	public CrowdinItem(@Nullable ItemType type, @Nullable String name, @Nullable String id) {
+		this.type = type;
+		this.name = name;
+		this.id = id;
+	}
+
+	/**
+	 * @return The {@link ItemType} or {@code null} if unknown or root.
+	 */
+	@Nullable
+	public ItemType getType() {
+		return type;
+	}
+
+	/**
+	 * @return The name or {@code null} if this is the root.
+	 */
+	@Nullable
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The crowdin id or {@code null} if unknown.
+	 */
+	@Nullable
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return The parent {@link CrowdinItem} or {@code null} if this is the
+	 *         root.
+	 */
+	@Nullable
+	public CrowdinItem getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return {@code true} if this is the crowdin project root,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isRoot() {
+		return parent == null && name == null;
+	}
+
+	/**
+	 * @return The {@link CrowdinProject} this {@link CrowdinItem} is indexed
+	 *         by or {@code null} if it isn't indexed.
+	 */
+	@Nullable
+	public CrowdinProject getProject() {
+		return project;
+	}
+
+	/**
+	 * @return The unmodifiable {@link Collection} of children.
+	 */
+	@Nonnull
+	public Collection<CrowdinItem> getChildren() {
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableCollection(children.values());
+	}
+
+	/**
+	 * Returns the child with the specified name.
+	 *
+	 * @param childName the name of the child.
+	 * @return The child {@link CrowdinItem} or {@code null} if there is no
+	 *         child with the specified name.
+	 */
+	@Nullable
+	public CrowdinItem getChild(@Nullable String childName) {
+		return children == null || childName == null ? null : children.get(childName);
+	}
+
+	/**
+	 * Adds a child to this {@link CrowdinItem}. If this {@link CrowdinItem}
+	 * is indexed, the child and its descendants are indexed too.
+	 *
+	 * @param child the {@link CrowdinItem} to add.
+	 */
+	protected void addChild(@Nonnull CrowdinItem child) {
+		if (children == null) {
+			children = new LinkedHashMap<>();
+		}
+		child.parent = this;
+		child.path = null;
+		children.put(child.name, child);
+		if (project != null) {
+			project.index(child);
+		}
+	}
+
+	/**
+	 * Returns the path of this {@link CrowdinItem} relative to the crowdin
+	 * project root, using slash as separator.
+	 *
+	 * @return The path or an empty string if this is the root.
+	 */
+	@Nonnull
+	public String getPath() {
+		if (path == null) {
+			if (parent == null) {
+				path = name == null ? "" : name;
+			} else {
+				String parentPath = parent.getPath();
+				path = parentPath.isEmpty() ? name : parentPath + "/" + name;
+			}
+		}
+		return path;
+	}
+
+	@Override
+	public String toString() {
+		if (isRoot()) {
+			return "CrowdinItem [root]";
+		}
+		return "CrowdinItem [type=" + type + ", path=\"" + getPath() + "\", id=" + id + "]";
+	}
+}
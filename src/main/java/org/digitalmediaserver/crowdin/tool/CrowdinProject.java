@@ -0,0 +1,273 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.ItemType;
+
+
+/**
+ * This class is a compact representation of the crowdin project information
+ * returned by the {@code "info"} function in the crowdin API.
+ * <p>
+ * The file tree might be pruned to a single branch or to the items outside of
+ * any branch, in which case {@link #isPruned()} returns {@code true} and
+ * {@link #getBranchFilter()} tells which part of the tree is present.
+ * <p>
+ * All items are indexed by their normalized path, so that lookups by path
+ * don't have to traverse the tree.
+ *
+ * @author Nadahar
+ */
+public class CrowdinProject {
+
+	/** The project name */
+	@Nullable
+	protected String name;
+
+	/** The project identifier */
+	@Nullable
+	protected String identifier;
+
+	/** The crowdin language codes of the project's target languages */
+	@Nonnull
+	protected final List<String> languages = new ArrayList<>();
+
+	/** The root of the file tree */
+	@Nonnull
+	protected final CrowdinItem root = new CrowdinItem();
+
+	/** The index of all items by path */
+	@Nonnull
+	protected final Map<String, CrowdinItem> index = new HashMap<>();
+
+	/** Whether the file tree has been pruned */
+	protected final boolean pruned;
+
+	/** The branch the file tree has been pruned to */
+	@Nullable
+	protected final String branchFilter;
+
+	/**
+	 * Creates a new empty instance.
+	 *
+	 * @param pruned whether the file tree is pruned.
+	 * @param branchFilter the branch the file tree is pruned to or
+	 *            {@code null} if it is pruned to the items outside of any
+	 *            branch. Ignored if {@code pruned} is {@code false}.
+	 */
+	protected CrowdinProject(boolean pruned, @Nullable String branchFilter) {
+		this.pruned = pruned;
+		this.branchFilter = pruned ? branchFilter : null;
+		root.project = this;
+		index.put("", root);
+	}
+
+	/**
+	 * @return The project name.
+	 */
+	@Nullable
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The project identifier.
+	 */
+	@Nullable
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	/**
+	 * @return The crowdin language codes of the project's target languages.
+	 */
+	@Nonnull
+	public List<String> getLanguages() {
+		return Collections.unmodifiableList(languages);
+	}
+
+	/**
+	 * @return The root {@link CrowdinItem} of the file tree.
+	 */
+	@Nonnull
+	public CrowdinItem getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return {@code true} if the file tree is pruned to either a single
+	 *         branch or to the items outside of any branch, {@code false} if
+	 *         it is complete.
+	 */
+	public boolean isPruned() {
+		return pruned;
+	}
+
+	/**
+	 * @return The branch the file tree is pruned to, or {@code null} if it is
+	 *         complete or pruned to the items outside of any branch.
+	 */
+	@Nullable
+	public String getBranchFilter() {
+		return branchFilter;
+	}
+
+	/**
+	 * Checks whether the file tree of this {@link CrowdinProject} has the
+	 * information needed for the specified branch.
+	 *
+	 * @param branch the branch name or {@code null} for the items outside of
+	 *            any branch.
+	 * @return {@code true} if {@code branch} is covered, {@code false}
+	 *         otherwise.
+	 */
+	public boolean covers(@Nullable String branch) {
+		if (!pruned) {
+			return true;
+		}
+		return branch == null ? branchFilter == null : branch.equals(branchFilter);
+	}
+
+	/**
+	 * Returns the item with the specified path.
+	 *
+	 * @param path the path relative to the crowdin project root. Backslashes
+	 *            and leading, trailing or repeated slashes are tolerated.
+	 * @return The {@link CrowdinItem} or {@code null} if no item with the
+	 *         specified path exists.
+	 */
+	@Nullable
+	public CrowdinItem getItem(@Nullable String path) {
+		if (path == null) {
+			return null;
+		}
+		return index.get(normalizePath(path));
+	}
+
+	/**
+	 * Adds a new item to the file tree, typically to reflect a change made
+	 * through the crowdin API without requesting the project information
+	 * again.
+	 *
+	 * @param parent the parent {@link CrowdinItem}, which must belong to this
+	 *            {@link CrowdinProject}.
+	 * @param type the {@link ItemType} of the new item.
+	 * @param itemName the name of the new item.
+	 * @param id the crowdin id of the new item or {@code null} if unknown.
+	 * @return The new {@link CrowdinItem}.
+	 * @throws IllegalArgumentException If {@code parent} doesn't belong to
+	 *             this {@link CrowdinProject} or is a file.
+	 */
+	@Nonnull
+	public CrowdinItem addItem(
+		@Nonnull CrowdinItem parent,
+		@Nonnull ItemType type,
+		@Nonnull String itemName,
+		@Nullable String id
+	) {
+		if (parent.project != this) {
+			throw new IllegalArgumentException("parent doesn't belong to this project");
+		}
+		if (parent.type == ItemType.FILE) {
+			throw new IllegalArgumentException("parent can't be a file");
+		}
+		CrowdinItem item = new CrowdinItem(type, itemName, id);
+		parent.addChild(item);
+		return item;
+	}
+
+	/**
+	 * @return The number of items in the file tree, excluding the root.
+	 */
+	public int size() {
+		return index.size() - 1;
+	}
+
+	/**
+	 * Adds the specified {@link CrowdinItem} and all its descendants to the
+	 * index.
+	 *
+	 * @param item the {@link CrowdinItem} to index.
+	 */
+	protected void index(@Nonnull CrowdinItem item) {
+		Deque<CrowdinItem> queue = new ArrayDeque<>();
+		queue.add(item);
+		while (!queue.isEmpty()) {
+			CrowdinItem current = queue.poll();
+			current.project = this;
+			index.put(current.getPath(), current);
+			if (current.children != null) {
+				queue.addAll(current.children.values());
+			}
+		}
+	}
+
+	/**
+	 * Normalizes a crowdin path by converting backslashes to slashes and
+	 * removing leading, trailing and repeated slashes.
+	 *
+	 * @param path the path to normalize.
+	 * @return The normalized path.
+	 */
+	@Nonnull
+	public static String normalizePath(@Nonnull String path) {
+		int length = path.length();
+		boolean clean = length == 0 || path.charAt(0) != '/' && path.charAt(length - 1) != '/';
+		for (int i = 0; clean && i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '\\' || c == '/' && path.charAt(i - 1) == '/') {
+				clean = false;
+			}
+		}
+		if (clean) {
+			return path;
+		}
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '\\' || c == '/') {
+				if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '/') {
+					sb.append('/');
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		if (sb.length() > 0 && sb.charAt(sb.length() - 1) == '/') {
+			sb.setLength(sb.length() - 1);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return
+			"CrowdinProject [name=" + name + ", identifier=" + identifier +
+			(pruned ? ", branchFilter=" + branchFilter : "") + "]";
+	}
+}
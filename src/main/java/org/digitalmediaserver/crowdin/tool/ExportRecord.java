@@ -0,0 +1,255 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * This class represents the last translations export requested from crowdin
+ * for a project and branch: when it was requested and what crowdin replied.
+ * Records are stored as properties files in a subfolder named after the
+ * crowdin project identifier, with one file for each branch. Calls to the
+ * crowdin API that can change the translations delete the records for the
+ * project in all known folders, see {@link #invalidate(String, Log)}.
+ *
+ * @author Nadahar
+ */
+@Immutable
+public class ExportRecord {
+
+	/** The export record file name prefix */
+	protected static final String PREFIX = "export-";
+
+	/** The export record file extension */
+	protected static final String EXTENSION = ".properties";
+
+	/**
+	 * The crowdin API functions that can change the result of the next export
+	 */
+	public static final Set<String> INVALIDATING_METHODS;
+
+	static {
+		Set<String> methods = new HashSet<>(ProjectCache.MUTATING_METHODS);
+		methods.add("upload-translation");
+		INVALIDATING_METHODS = Collections.unmodifiableSet(methods);
+	}
+
+	/** The export record folders in use by this JVM */
+	private static final Set<Path> FOLDERS = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+	/** The time of the export request in milliseconds since the epoch */
+	protected final long time;
+
+	/** The export status */
+	@Nullable
+	protected final String status;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param time the time of the export request in milliseconds since the
+	 *            epoch.
+	 * @param status the export status.
+	 */
+	public ExportRecord(long time, @Nullable String status) {
+		this.time = time;
+		this.status = status;
+	}
+
+	/**
+	 * @return The time of the export request in milliseconds since the epoch.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return The export status.
+	 */
+	@Nullable
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the age of this record.
+	 *
+	 * @return The time in milliseconds since the export request.
+	 */
+	public long getAge() {
+		return System.currentTimeMillis() - time;
+	}
+
+	/**
+	 * Loads the {@link ExportRecord} for the specified project and branch.
+	 *
+	 * @param folder the folder where export records are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @param logger the {@link Log} to use for logging.
+	 * @return The {@link ExportRecord} or {@code null} if there is no usable
+	 *         record.
+	 */
+	@Nullable
+	public static ExportRecord load(
+		@Nonnull Path folder,
+		@Nonnull String identifier,
+		@Nullable String branch,
+		@Nullable Log logger
+	) {
+		Path file = getFile(folder, identifier, branch);
+		Properties properties = new Properties();
+		try (InputStream is = Files.newInputStream(file)) {
+			properties.load(is);
+			return new ExportRecord(Long.parseLong(properties.getProperty("time")), properties.getProperty("status"));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | NumberFormatException e) {
+			if (logger != null) {
+				logger.debug("Ignoring unreadable export record \"" + file + "\": " + e.getMessage());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stores this {@link ExportRecord} for the specified project and branch.
+	 * Failures are logged and otherwise ignored.
+	 *
+	 * @param folder the folder where export records are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @param logger the {@link Log} to use for logging.
+	 */
+	public void store(
+		@Nonnull Path folder,
+		@Nonnull String identifier,
+		@Nullable String branch,
+		@Nullable Log logger
+	) {
+		Path file = getFile(folder, identifier, branch);
+		Properties properties = new Properties();
+		properties.setProperty("time", Long.toString(time));
+		if (status != null) {
+			properties.setProperty("status", status);
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			Path tempFile = Files.createTempFile(file.getParent(), PREFIX, ".tmp");
+			try {
+				try (OutputStream os = Files.newOutputStream(tempFile)) {
+					properties.store(os, "Last crowdin export of " + identifier + (branch == null ? "" : " branch " + branch));
+				}
+				try {
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.warn("Failed to store export record \"" + file + "\": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Registers a folder where export records are stored, so that the records
+	 * in it are deleted by {@link #invalidate(String, Log)}.
+	 *
+	 * @param folder the folder where export records are stored.
+	 */
+	public static void addFolder(@Nonnull Path folder) {
+		FOLDERS.add(folder.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Deletes all export records for the specified project in all folders
+	 * registered with {@link #addFolder(Path)}, so that the next build with
+	 * {@link org.digitalmediaserver.crowdin.configuration.BuildPolicy#ifStale}
+	 * asks crowdin to export.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public static void invalidate(@Nullable String identifier, @Nullable Log logger) {
+		if (identifier == null || FOLDERS.isEmpty()) {
+			return;
+		}
+		for (Path folder : FOLDERS) {
+			Path projectFolder = folder.resolve(ProjectCache.encode(identifier));
+			if (!Files.isDirectory(projectFolder)) {
+				continue;
+			}
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(projectFolder, PREFIX + "*" + EXTENSION)) {
+				for (Path file : stream) {
+					Files.deleteIfExists(file);
+				}
+				if (logger != null) {
+					logger.debug("Invalidated crowdin export records in \"" + projectFolder + "\"");
+				}
+			} catch (IOException e) {
+				if (logger != null) {
+					logger.warn("Failed to invalidate crowdin export records in \"" + projectFolder + "\": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link Path} of the export record file for the specified
+	 * project and branch.
+	 *
+	 * @param folder the folder where export records are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @return The {@link Path}.
+	 */
+	@Nonnull
+	protected static Path getFile(@Nonnull Path folder, @Nonnull String identifier, @Nullable String branch) {
+		return folder.resolve(ProjectCache.encode(identifier)).resolve(
+			PREFIX + (branch == null ? "root" : "branch-" + ProjectCache.encode(branch)) + EXTENSION
+		);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [time=" + time + ", status=" + status + "]";
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.http.client.HttpClient;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Server;
+import org.jdom2.Document;
+import org.jdom2.Element;
+
+
+/**
+ * Polls the crowdin {@code export-status} API method until the translations
+ * export is finished. The delay between polls adapts to the reported
+ * progress: it's set to the estimated remaining time when the export is
+ * progressing and doubled when it isn't, always within the configured limits
+ * and never beyond the timeout.
+ *
+ * @author Nadahar
+ */
+public class ExportStatusPoller {
+
+	/** The default minimum delay in milliseconds between polls */
+	public static final long DEFAULT_INITIAL_DELAY = 500;
+
+	/** The default maximum delay in milliseconds between polls */
+	public static final long DEFAULT_MAX_DELAY = 15000;
+
+	/** The {@code export-status} status value of a finished export */
+	public static final String FINISHED = "finished";
+
+	/** The {@link HttpClient} to use */
+	@Nonnull
+	protected final HttpClient httpClient;
+
+	/** The {@link Server} to use for crowdin credentials */
+	@Nonnull
+	protected final Server server;
+
+	/** The branch or {@code null} */
+	@Nullable
+	protected final String branch;
+
+	/** The minimum delay in milliseconds between polls */
+	protected final long initialDelay;
+
+	/** The maximum delay in milliseconds between polls */
+	protected final long maxDelay;
+
+	/** The timeout in milliseconds */
+	protected final long timeout;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param branch the branch to poll the export status for or {@code null}.
+	 * @param initialDelay the minimum delay in milliseconds between polls.
+	 * @param maxDelay the maximum delay in milliseconds between polls.
+	 * @param timeout the maximum time in milliseconds to wait.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public ExportStatusPoller(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nullable String branch,
+		long initialDelay,
+		long maxDelay,
+		long timeout,
+		@Nullable Log logger
+	) {
+		this.httpClient = httpClient;
+		this.server = server;
+		this.branch = branch;
+		this.initialDelay = Math.max(initialDelay, 1L);
+		this.maxDelay = Math.max(maxDelay, this.initialDelay);
+		this.timeout = Math.max(timeout, 0L);
+		this.logger = logger;
+	}
+
+	/**
+	 * Polls the export status until the export is finished.
+	 *
+	 * @return The last {@code export-status} {@link Document}.
+	 * @throws TimeoutException If the export didn't finish within the
+	 *             timeout.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public Document waitForExport() throws IOException, TimeoutException {
+		Map<String, String> parameters = null;
+		if (branch != null) {
+			parameters = new HashMap<>();
+			parameters.put("branch", branch);
+		}
+
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+		long delay = 0;
+		long lastTime = start;
+		int lastProgress = -1;
+		while (true) {
+			Document document = CrowdinAPI.requestGetDocument(httpClient, server, "export-status", parameters, logger);
+			long now = System.nanoTime();
+			Element root = document.getRootElement();
+			String status = root.getChildTextNormalize("status");
+			int progress = parseProgress(root.getChildTextNormalize("progress"));
+			if (FINISHED.equals(status)) {
+				if (logger != null) {
+					logger.debug(
+						"Crowdin export finished after " + TimeUnit.NANOSECONDS.toMillis(now - start) + " ms"
+					);
+				}
+				return document;
+			}
+			if ("failed".equals(status)) {
+				throw new IOException("Crowdin reported that the translations export failed");
+			}
+
+			delay = nextDelay(delay, lastProgress, progress, TimeUnit.NANOSECONDS.toMillis(now - lastTime));
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - now);
+			if (remaining <= 0) {
+				throw new TimeoutException(
+					"Crowdin didn't finish the translations export within " + TimeUnit.MILLISECONDS.toSeconds(timeout) +
+					" seconds (status \"" + status + "\"" + (progress >= 0 ? ", " + progress + "%" : "") + ")"
+				);
+			}
+			delay = Math.min(delay, remaining);
+			if (logger != null) {
+				logger.info(
+					"Waiting for crowdin to export translations" + (progress >= 0 ? " (" + progress + "%)" : "") +
+					", checking again in " + delay + " ms"
+				);
+			}
+			if (progress >= 0) {
+				lastProgress = progress;
+				lastTime = now;
+			}
+			sleep(delay);
+		}
+	}
+
+	/**
+	 * Calculates the delay before the next poll. If the progress increased
+	 * since the last poll, the remaining time is estimated from the rate of
+	 * progress. Otherwise the previous delay is doubled.
+	 *
+	 * @param delay the previous delay in milliseconds or {@code 0} before the
+	 *            first delay.
+	 * @param lastProgress the progress in percent at the previous poll or
+	 *            {@code -1} if unknown.
+	 * @param progress the current progress in percent or {@code -1} if
+	 *            unknown.
+	 * @param elapsed the time in milliseconds since the previous poll with a
+	 *            known progress.
+	 * @return The delay in milliseconds.
+	 */
+	protected long nextDelay(long delay, int lastProgress, int progress, long elapsed) {
+		long result;
+		if (lastProgress >= 0 && progress > lastProgress && elapsed > 0) {
+			result = (100 - progress) * elapsed / (progress - lastProgress);
+		} else {
+			result = delay * 2;
+		}
+		return Math.max(initialDelay, Math.min(result, maxDelay));
+	}
+
+	/**
+	 * Sleeps for the specified time.
+	 *
+	 * @param millis the time to sleep in milliseconds.
+	 * @throws InterruptedIOException If the thread is interrupted.
+	 */
+	protected void sleep(long millis) throws InterruptedIOException {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the crowdin export");
+		}
+	}
+
+	/**
+	 * Parses a progress value.
+	 *
+	 * @param value the value to parse.
+	 * @return The progress in percent or {@code -1} if it's unknown.
+	 */
+	protected static int parseProgress(@Nullable String value) {
+		if (value == null || value.isEmpty()) {
+			return -1;
+		}
+		try {
+			return Math.max(Math.min(Integer.parseInt(value), 100), 0);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * This class represents the content of the translations archive from the
+ * last successful fetch as a map of file paths to CRC-32 and size. It's used
+ * to skip extracting files that haven't changed since the previous fetch.
+ * <p>
+ * The manifest and the set of files that changed since the last successful
+ * deploy are stored in {@link #FOLDER_NAME} in the download folder, which is
+ * ignored by {@code deploy}. The paths are relative to the download folder and use
+ * {@code "/"} as separator.
+ *
+ * @author Nadahar
+ */
+public class FetchManifest {
+
+	/** The name of the folder holding the manifest and the change set */
+	public static final String FOLDER_NAME = ".crowdin";
+
+	/** The manifest file name */
+	public static final String MANIFEST_FILENAME = "fetch-manifest.txt";
+
+	/** The change set file name */
+	public static final String CHANGES_FILENAME = "fetch-changes.txt";
+
+	/** The entries of this manifest */
+	@Nonnull
+	protected final Map<String, Entry> entries = new TreeMap<>();
+
+	/**
+	 * @return The number of entries in this manifest.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return The paths of all the entries in this manifest.
+	 */
+	@Nonnull
+	public Set<String> getPaths() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * Returns the {@link Entry} for the specified path.
+	 *
+	 * @param path the relative file path.
+	 * @return The {@link Entry} or {@code null}.
+	 */
+	@Nullable
+	public Entry get(@Nullable String path) {
+		return entries.get(path);
+	}
+
+	/**
+	 * Adds or replaces the entry for the specified path.
+	 *
+	 * @param path the relative file path.
+	 * @param crc the CRC-32 of the file content.
+	 * @param size the size of the file in bytes.
+	 */
+	public void put(@Nonnull String path, long crc, long size) {
+		entries.put(path, new Entry(crc, size));
+	}
+
+	/**
+	 * Checks whether the specified path is registered with the specified
+	 * CRC-32 and size.
+	 *
+	 * @param path the relative file path.
+	 * @param crc the CRC-32 to compare with or {@code -1} if it's unknown.
+	 * @param size the size to compare with or {@code -1} if it's unknown.
+	 * @return {@code true} if the entry matches, {@code false} otherwise.
+	 */
+	public boolean matches(@Nullable String path, long crc, long size) {
+		if (crc < 0 || size < 0) {
+			return false;
+		}
+		Entry entry = entries.get(path);
+		return entry != null && entry.crc == crc && entry.size == size;
+	}
+
+	/**
+	 * Loads the manifest stored in the specified download folder.
+	 *
+	 * @param downloadFolder the download folder.
+	 * @param logger the {@link Log} to use for logging.
+	 * @return The {@link FetchManifest} or {@code null} if there is no
+	 *         manifest or it couldn't be read.
+	 */
+	@Nullable
+	public static FetchManifest load(@Nonnull Path downloadFolder, @Nullable Log logger) {
+		Path file = downloadFolder.resolve(FOLDER_NAME).resolve(MANIFEST_FILENAME);
+		FetchManifest result = new FetchManifest();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				String[] parts = line.split("\t", 3);
+				if (parts.length != 3) {
+					throw new IOException("Invalid line \"" + line + "\"");
+				}
+				result.put(parts[2], Long.parseLong(parts[0], 16), Long.parseLong(parts[1]));
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | NumberFormatException e) {
+			if (logger != null) {
+				logger.warn("Ignoring unreadable fetch manifest \"" + file + "\": " + e.getMessage());
+			}
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores this manifest in the specified download folder.
+	 *
+	 * @param downloadFolder the download folder.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public void store(@Nonnull Path downloadFolder) throws IOException {
+		Path folder = downloadFolder.resolve(FOLDER_NAME);
+		Files.createDirectories(folder);
+		try (BufferedWriter writer = Files.newBufferedWriter(folder.resolve(MANIFEST_FILENAME), StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				writer.write(Long.toHexString(entry.getValue().crc));
+				writer.write('\t');
+				writer.write(Long.toString(entry.getValue().size));
+				writer.write('\t');
+				writer.write(entry.getKey());
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Deletes the manifest stored in the specified download folder, if any.
+	 * The change set is kept, since it holds changes that might not have been
+	 * deployed yet.
+	 *
+	 * @param downloadFolder the download folder.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static void delete(@Nonnull Path downloadFolder) throws IOException {
+		Files.deleteIfExists(downloadFolder.resolve(FOLDER_NAME).resolve(MANIFEST_FILENAME));
+	}
+
+	/**
+	 * Loads the change set stored in the specified download folder.
+	 *
+	 * @param downloadFolder the download folder.
+	 * @param logger the {@link Log} to use for logging.
+	 * @return The {@link Set} of relative paths that changed since the last
+	 *         successful deploy or {@code null} if it isn't known.
+	 */
+	@Nullable
+	public static Set<String> loadChanges(@Nonnull Path downloadFolder, @Nullable Log logger) {
+		Path file = downloadFolder.resolve(FOLDER_NAME).resolve(CHANGES_FILENAME);
+		Set<String> result = new LinkedHashSet<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					result.add(line);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.warn("Ignoring unreadable change set \"" + file + "\": " + e.getMessage());
+			}
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the specified change set in the specified download folder.
+	 *
+	 * @param downloadFolder the download folder.
+	 * @param changes the relative paths that changed.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static void storeChanges(
+		@Nonnull Path downloadFolder,
+		@Nonnull Collection<String> changes
+	) throws IOException {
+		Path folder = downloadFolder.resolve(FOLDER_NAME);
+		Files.createDirectories(folder);
+		try (BufferedWriter writer = Files.newBufferedWriter(folder.resolve(CHANGES_FILENAME), StandardCharsets.UTF_8)) {
+			for (String path : new TreeSet<>(changes)) {
+				writer.write(path);
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * This class represents a single manifest entry.
+	 */
+	public static final class Entry {
+
+		/** The CRC-32 of the file content */
+		public final long crc;
+
+		/** The size of the file in bytes */
+		public final long size;
+
+		/**
+		 * Creates a new instance using the specified parameters.
+		 *
+		 * @param crc the CRC-32 of the file content.
+		 * @param size the size of the file in bytes.
+		 */
+		public Entry(long crc, long size) {
+			this.crc = crc;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import static org.digitalmediaserver.crowdin.AbstractCrowdinMojo.isBlank;
+import static org.digitalmediaserver.crowdin.tool.Constants.FILTER_DELIMITERS;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+
+/**
+ * This class represents a compiled include or exclude filter, where
+ * {@code ?} and {@code *} are wildcards, {@code \} is a path separator and
+ * the rest are literals. Filters that only have {@code *} wildcards at the
+ * start and/or the end are matched without using a regular expression.
+ *
+ * @author Nadahar
+ */
+@Immutable
+public class PathFilter {
+
+	/** The filter as configured */
+	@Nonnull
+	protected final String filter;
+
+	/** The {@link Type} of this filter */
+	@Nonnull
+	protected final Type type;
+
+	/** The literal to match for the non-pattern types */
+	@Nullable
+	protected final String literal;
+
+	/** The compiled {@link Pattern} for {@link Type#PATTERN} */
+	@Nullable
+	protected final Pattern pattern;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param filter the filter as configured.
+	 * @param type the {@link Type}.
+	 * @param literal the literal to match or {@code null}.
+	 * @param pattern the {@link Pattern} to match or {@code null}.
+	 */
+	protected PathFilter(
+		@Nonnull String filter,
+		@Nonnull Type type,
+		@Nullable String literal,
+		@Nullable Pattern pattern
+	) {
+		this.filter = filter;
+		this.type = type;
+		this.literal = literal;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Compiles the specified filter.
+	 *
+	 * @param filter the filter to compile.
+	 * @return The new {@link PathFilter} or {@code null} if {@code filter} is
+	 *         blank.
+	 */
+	@Nullable
+	public static PathFilter compile(@Nullable String filter) {
+		if (isBlank(filter)) {
+			return null;
+		}
+		String path = filter.replace('\\', '/');
+		if (path.indexOf('?') < 0) {
+			int start = 0;
+			int end = path.length();
+			while (start < end && path.charAt(start) == '*') {
+				start++;
+			}
+			while (end > start && path.charAt(end - 1) == '*') {
+				end--;
+			}
+			String core = path.substring(start, end);
+			if (core.indexOf('*') < 0) {
+				boolean leading = start > 0;
+				boolean trailing = end < path.length();
+				if (core.isEmpty()) {
+					return new PathFilter(filter, Type.ANY, null, null);
+				}
+				if (leading && trailing) {
+					return new PathFilter(filter, Type.CONTAINS, core, null);
+				}
+				if (leading) {
+					return new PathFilter(filter, Type.SUFFIX, core, null);
+				}
+				if (trailing) {
+					return new PathFilter(filter, Type.PREFIX, core, null);
+				}
+				return new PathFilter(filter, Type.EXACT, core, null);
+			}
+		}
+		return new PathFilter(filter, Type.PATTERN, null, createPattern(filter));
+	}
+
+	/**
+	 * @return The filter as configured.
+	 */
+	@Nonnull
+	public String getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Checks whether the specified path matches this filter.
+	 *
+	 * @param path the path using slash as separator.
+	 * @return {@code true} if {@code path} matches, {@code false} otherwise.
+	 */
+	public boolean matches(@Nonnull String path) {
+		switch (type) {
+			case ANY:
+				return true;
+			case EXACT:
+				return path.equals(literal);
+			case PREFIX:
+				return path.startsWith(literal);
+			case SUFFIX:
+				return path.endsWith(literal);
+			case CONTAINS:
+				return path.contains(literal);
+			case PATTERN:
+				return pattern.matcher(path).matches();
+			default:
+				throw new AssertionError("Unimplemented type " + type);
+		}
+	}
+
+	/**
+	 * Creates a regular expression {@link Pattern} from the specified filter.
+	 *
+	 * @param filter the filter.
+	 * @return The {@link Pattern}.
+	 */
+	@Nonnull
+	protected static Pattern createPattern(@Nonnull String filter) {
+		Matcher matcher = FILTER_DELIMITERS.matcher(filter);
+
+		StringBuilder sb = new StringBuilder(filter.length() * 2);
+		int next = 0;
+		String literal;
+		while (matcher.find()) {
+			literal = filter.substring(next, matcher.start());
+			if (!literal.isEmpty()) {
+				sb.append(Pattern.quote(literal));
+			}
+			switch (matcher.group()) {
+				case "?":
+					sb.append(".");
+					break;
+				case "*":
+					sb.append(".*");
+					break;
+				case "\\":
+					sb.append("/");
+					break;
+				default:
+					throw new AssertionError("Broken code in createPattern");
+			}
+			next = matcher.end();
+		}
+
+		literal = filter.substring(next);
+		if (!literal.isEmpty()) {
+			sb.append(Pattern.quote(literal));
+		}
+
+		return Pattern.compile(sb.toString());
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [filter=\"" + filter + "\", type=" + type + "]";
+	}
+
+	/**
+	 * The types of {@link PathFilter}.
+	 */
+	protected enum Type {
+
+		/** Matches everything */
+		ANY,
+
+		/** Matches the literal */
+		EXACT,
+
+		/** Matches paths starting with the literal */
+		PREFIX,
+
+		/** Matches paths ending with the literal */
+		SUFFIX,
+
+		/** Matches paths containing the literal */
+		CONTAINS,
+
+		/** Matches the regular expression */
+		PATTERN
+	}
+}
@@ -0,0 +1,403 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.maven.plugin.logging.Log;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.ItemType;
+
+
+/**
+ * This class stores snapshots of {@link CrowdinProject}s on disk, so that the
+ * project information doesn't have to be requested from crowdin by every goal
+ * and every reactor module.
+ * <p>
+ * Snapshots are stored in a compact binary form in a subfolder named after
+ * the crowdin project identifier, with one file for each combination of
+ * pruning and branch. A snapshot is only used if it's younger than the
+ * configured time to live. Calls to the crowdin API that modify the file tree
+ * invalidate all snapshots for the project in all known cache folders, see
+ * {@link #invalidate(String, Log)}.
+ *
+ * @author Nadahar
+ */
+@ThreadSafe
+public class ProjectCache {
+
+	/** The crowdin API functions that modify the file tree */
+	public static final Set<String> MUTATING_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+		"add-directory",
+		"add-file",
+		"change-directory",
+		"delete-directory",
+		"delete-file",
+		"update-file"
+	)));
+
+	/** The magic number identifying a snapshot file */
+	protected static final int MAGIC = 0x43524443;
+
+	/** The snapshot format version */
+	protected static final int VERSION = 2;
+
+	/** The snapshot file extension */
+	protected static final String EXTENSION = ".bin";
+
+	/** The cache folders in use by this JVM */
+	private static final Set<Path> FOLDERS = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+	/** The cache folder */
+	@Nonnull
+	protected final Path folder;
+
+	/** The time to live in milliseconds */
+	protected final long timeToLive;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param folder the cache folder.
+	 * @param timeToLive the time to live for snapshots in milliseconds.
+	 */
+	public ProjectCache(@Nonnull Path folder, long timeToLive) {
+		this.folder = folder.toAbsolutePath().normalize();
+		this.timeToLive = timeToLive;
+		FOLDERS.add(this.folder);
+	}
+
+	/**
+	 * @return The cache folder.
+	 */
+	@Nonnull
+	public Path getFolder() {
+		return folder;
+	}
+
+	/**
+	 * @return The time to live for snapshots in milliseconds.
+	 */
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Loads a snapshot for the specified project and scope if a fresh one
+	 * exists. If {@code prune} is {@code true} and there is no fresh snapshot
+	 * for the pruned scope, a fresh unpruned snapshot is used if it exists.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 * @param prune whether the file tree should be pruned.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The cached {@link CrowdinProject} or {@code null} if no fresh
+	 *         snapshot exists.
+	 */
+	@Nullable
+	public CrowdinProject load(
+		@Nonnull String identifier,
+		@Nullable String branch,
+		boolean prune,
+		@Nullable Log logger
+	) {
+		CrowdinProject result = load(getFile(identifier, branch, prune), logger);
+		if (result == null && prune) {
+			result = load(getFile(identifier, null, false), logger);
+		}
+		if (result != null && logger != null) {
+			logger.info("Using cached crowdin project information");
+		}
+		return result;
+	}
+
+	/**
+	 * Loads the specified snapshot file if it's fresh.
+	 *
+	 * @param file the snapshot file.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The cached {@link CrowdinProject} or {@code null}.
+	 */
+	@Nullable
+	protected CrowdinProject load(@Nonnull Path file, @Nullable Log logger) {
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536))) {
+			if (is.readInt() != MAGIC || is.readInt() != VERSION) {
+				if (logger != null) {
+					logger.debug("Ignoring incompatible crowdin project cache file \"" + file + "\"");
+				}
+				return null;
+			}
+			long age = System.currentTimeMillis() - is.readLong();
+			if (age < 0 || age > timeToLive) {
+				if (logger != null) {
+					logger.debug("Ignoring expired crowdin project cache file \"" + file + "\"");
+				}
+				return null;
+			}
+			return readProject(is);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.debug("Failed to read crowdin project cache file \"" + file + "\": " + e.getMessage());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a snapshot of the specified {@link CrowdinProject}. Failures are
+	 * logged and otherwise ignored.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param project the {@link CrowdinProject} to store.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public void store(@Nonnull String identifier, @Nonnull CrowdinProject project, @Nullable Log logger) {
+		Path file = getFile(identifier, project.getBranchFilter(), project.isPruned());
+		Path tempFile = null;
+		try {
+			Files.createDirectories(file.getParent());
+			tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 65536))) {
+				os.writeInt(MAGIC);
+				os.writeInt(VERSION);
+				os.writeLong(System.currentTimeMillis());
+				writeProject(os, project);
+			}
+			try {
+				Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			tempFile = null;
+			if (logger != null) {
+				logger.debug("Stored crowdin project information in \"" + file + "\"");
+			}
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.warn("Failed to write crowdin project cache file \"" + file + "\": " + e.getMessage());
+			}
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException e) {
+					// Nothing more to do
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all snapshots for the specified project in all cache folders
+	 * used by this JVM.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public static void invalidate(@Nullable String identifier, @Nullable Log logger) {
+		if (identifier == null || FOLDERS.isEmpty()) {
+			return;
+		}
+		for (Path cacheFolder : FOLDERS) {
+			Path projectFolder = cacheFolder.resolve(encode(identifier));
+			if (!Files.isDirectory(projectFolder)) {
+				continue;
+			}
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(projectFolder, "*" + EXTENSION)) {
+				for (Path file : stream) {
+					Files.deleteIfExists(file);
+				}
+				if (logger != null) {
+					logger.debug("Invalidated crowdin project cache in \"" + projectFolder + "\"");
+				}
+			} catch (IOException e) {
+				if (logger != null) {
+					logger.warn("Failed to invalidate crowdin project cache in \"" + projectFolder + "\": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the snapshot file for the specified project and scope.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch the file tree is pruned to.
+	 * @param prune whether the file tree is pruned.
+	 * @return The snapshot file {@link Path}.
+	 */
+	@Nonnull
+	protected Path getFile(@Nonnull String identifier, @Nullable String branch, boolean prune) {
+		String scope;
+		if (!prune) {
+			scope = "all";
+		} else if (branch == null) {
+			scope = "root";
+		} else {
+			scope = "branch-" + encode(branch);
+		}
+		return folder.resolve(encode(identifier)).resolve(scope + EXTENSION);
+	}
+
+	/**
+	 * Encodes a string so that it can safely be used as a file name.
+	 *
+	 * @param name the string to encode.
+	 * @return The encoded string.
+	 */
+	@Nonnull
+	public static String encode(@Nonnull String name) {
+		try {
+			return URLEncoder.encode(name, "UTF-8").replace("*", "%2A");
+		} catch (UnsupportedEncodingException e) {
+			throw new AssertionError("UTF-8 is unsupported", e);
+		}
+	}
+
+	/**
+	 * Writes a {@link CrowdinProject} to the specified stream.
+	 *
+	 * @param os the {@link DataOutputStream} to write to.
+	 * @param project the {@link CrowdinProject} to write.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected static void writeProject(@Nonnull DataOutputStream os, @Nonnull CrowdinProject project) throws IOException {
+		writeString(os, project.getName());
+		writeString(os, project.getIdentifier());
+		os.writeBoolean(project.isPruned());
+		writeString(os, project.getBranchFilter());
+		os.writeInt(project.getLanguages().size());
+		for (String language : project.getLanguages()) {
+			writeString(os, language);
+		}
+		writeChildren(os, project.getRoot().getChildren());
+	}
+
+	/**
+	 * Writes a {@link Collection} of {@link CrowdinItem}s and their
+	 * descendants to the specified stream.
+	 *
+	 * @param os the {@link DataOutputStream} to write to.
+	 * @param items the {@link CrowdinItem}s to write.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected static void writeChildren(
+		@Nonnull DataOutputStream os,
+		@Nonnull Collection<CrowdinItem> items
+	) throws IOException {
+		os.writeInt(items.size());
+		for (CrowdinItem item : items) {
+			ItemType type = item.getType();
+			os.writeByte(type == null ? 0 : type.ordinal() + 1);
+			writeString(os, item.getName());
+			writeString(os, item.getId());
+			writeChildren(os, item.getChildren());
+		}
+	}
+
+	/**
+	 * Reads a {@link CrowdinProject} from the specified stream.
+	 *
+	 * @param is the {@link DataInputStream} to read from.
+	 * @return The resulting {@link CrowdinProject}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected static CrowdinProject readProject(@Nonnull DataInputStream is) throws IOException {
+		String name = readString(is);
+		String identifier = readString(is);
+		boolean pruned = is.readBoolean();
+		CrowdinProject project = new CrowdinProject(pruned, readString(is));
+		project.name = name;
+		project.identifier = identifier;
+		int languageCount = is.readInt();
+		if (languageCount < 0) {
+			throw new IOException("Invalid language count " + languageCount);
+		}
+		for (int i = 0; i < languageCount; i++) {
+			String language = readString(is);
+			if (language != null) {
+				project.languages.add(language);
+			}
+		}
+		readChildren(is, project.getRoot());
+		return project;
+	}
+
+	/**
+	 * Reads {@link CrowdinItem}s and their descendants from the specified
+	 * stream and adds them to {@code parent}.
+	 *
+	 * @param is the {@link DataInputStream} to read from.
+	 * @param parent the {@link CrowdinItem} to add the read items to.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected static void readChildren(@Nonnull DataInputStream is, @Nonnull CrowdinItem parent) throws IOException {
+		int count = is.readInt();
+		if (count < 0) {
+			throw new IOException("Invalid item count " + count);
+		}
+		ItemType[] types = ItemType.values();
+		for (int i = 0; i < count; i++) {
+			int typeIdx = is.readUnsignedByte();
+			if (typeIdx > types.length) {
+				throw new IOException("Invalid item type " + typeIdx);
+			}
+			CrowdinItem item = new CrowdinItem();
+			item.type = typeIdx == 0 ? null : types[typeIdx - 1];
+			item.name = readString(is);
+			item.id = readString(is);
+			readChildren(is, item);
+			parent.addChild(item);
+		}
+	}
+
+	private static void writeString(@Nonnull DataOutputStream os, @Nullable String value) throws IOException {
+		os.writeBoolean(value != null);
+		if (value != null) {
+			os.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readString(@Nonnull DataInputStream is) throws IOException {
+		return is.readBoolean() ? is.readUTF() : null;
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.digitalmediaserver.crowdin.tool.CrowdinFileSystem.ItemType;
+
+
+/**
+ * A streaming reader that builds a {@link CrowdinProject} directly from the
+ * XML returned by the {@code "info"} function in the crowdin API, without
+ * building a DOM first.
+ * <p>
+ * The file tree can optionally be pruned while parsing, in which case the
+ * subtrees of the top level items that aren't needed are skipped without
+ * being materialized.
+ *
+ * @author Nadahar
+ */
+public class ProjectInfoReader {
+
+	/** The {@link XMLInputFactory} to use */
+	protected static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	/** Whether to prune the top level of the file tree */
+	protected final boolean prune;
+
+	/** The branch to prune to, {@code null} means no branches */
+	@Nullable
+	protected final String branch;
+
+	/**
+	 * Creates a new instance that doesn't prune the file tree.
+	 */
+	public ProjectInfoReader() {
+		this(false, null);
+	}
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param prune whether to prune the top level of the file tree.
+	 * @param branch the name of the branch to keep if {@code prune} is
+	 *            {@code true}. If {@code null}, all branches are pruned and all
+	 *            other top level items are kept.
+	 */
+	public ProjectInfoReader(boolean prune, @Nullable String branch) {
+		this.prune = prune;
+		this.branch = branch;
+	}
+
+	/**
+	 * Parses the specified {@link InputStream}.
+	 *
+	 * @param inputStream the {@link InputStream} containing the XML response
+	 *            from the crowdin {@code "info"} function.
+	 * @return The resulting {@link CrowdinProject}.
+	 * @throws IOException If the response is an API error or can't be parsed.
+	 */
+	@Nonnull
+	public CrowdinProject read(@Nonnull InputStream inputStream) throws IOException {
+		try {
+			XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+			try {
+				reader.nextTag();
+				String rootName = reader.getLocalName();
+				if ("error".equals(rootName)) {
+					readError(reader);
+				}
+				if (!"info".equals(rootName)) {
+					throw new IOException("Unexpected root element \"" + rootName + "\" in crowdin project information");
+				}
+				CrowdinProject project = new CrowdinProject(prune, branch);
+				while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+					switch (reader.getLocalName()) {
+						case "files":
+							// The root is indexed, so items are indexed as they are added to it
+							readFiles(reader, project.getRoot(), true);
+							break;
+						case "details":
+							readDetails(reader, project);
+							break;
+						case "languages":
+							readLanguages(reader, project);
+							break;
+						default:
+							skipElement(reader);
+					}
+				}
+				return project;
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to parse API reponse: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the items of a {@code <files>} element into {@code parent}.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @param parent the {@link CrowdinItem} to add the items to.
+	 * @param topLevel whether this is the top level of the file tree.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 */
+	protected void readFiles(
+		@Nonnull XMLStreamReader reader,
+		@Nonnull CrowdinItem parent,
+		boolean topLevel
+	) throws XMLStreamException {
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if ("item".equals(reader.getLocalName())) {
+				CrowdinItem item = readItem(reader, topLevel);
+				if (item != null) {
+					parent.addChild(item);
+				}
+			} else {
+				skipElement(reader);
+			}
+		}
+	}
+
+	/**
+	 * Reads an {@code <item>} element.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @param topLevel whether this is the top level of the file tree.
+	 * @return The resulting {@link CrowdinItem} or {@code null} if it was
+	 *         pruned.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 */
+	@Nullable
+	protected CrowdinItem readItem(@Nonnull XMLStreamReader reader, boolean topLevel) throws XMLStreamException {
+		CrowdinItem item = new CrowdinItem();
+		boolean skipped = false;
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "name":
+					item.name = reader.getElementText();
+					break;
+				case "node_type":
+					item.type = ItemType.typeOf(reader.getElementText());
+					break;
+				case "id":
+					item.id = reader.getElementText();
+					break;
+				case "files":
+					if (topLevel && isPruned(item, false)) {
+						skipElement(reader);
+						skipped = true;
+					} else {
+						readFiles(reader, item, false);
+					}
+					break;
+				default:
+					skipElement(reader);
+			}
+		}
+		if (topLevel && (skipped || isPruned(item, true))) {
+			return null;
+		}
+		return item;
+	}
+
+	/**
+	 * Determines if the specified top level item should be pruned.
+	 *
+	 * @param item the {@link CrowdinItem} to evaluate.
+	 * @param complete whether all the information about {@code item} has been
+	 *            read.
+	 * @return {@code true} if {@code item} should be pruned, {@code false} if
+	 *         it should be kept or there isn't enough information yet.
+	 */
+	protected boolean isPruned(@Nonnull CrowdinItem item, boolean complete) {
+		if (!prune) {
+			return false;
+		}
+		if (branch == null) {
+			return item.type == ItemType.BRANCH;
+		}
+		if (item.type != null && item.type != ItemType.BRANCH) {
+			return true;
+		}
+		if (item.name != null && !branch.equals(item.name)) {
+			return true;
+		}
+		return complete && (item.type == null || item.name == null);
+	}
+
+	/**
+	 * Reads the {@code <details>} element.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @param project the {@link CrowdinProject} to populate.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 */
+	protected static void readDetails(
+		@Nonnull XMLStreamReader reader,
+		@Nonnull CrowdinProject project
+	) throws XMLStreamException {
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "name":
+					project.name = reader.getElementText();
+					break;
+				case "identifier":
+					project.identifier = reader.getElementText();
+					break;
+				default:
+					skipElement(reader);
+			}
+		}
+	}
+
+	/**
+	 * Reads the {@code <languages>} element.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @param project the {@link CrowdinProject} to populate.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 */
+	protected static void readLanguages(
+		@Nonnull XMLStreamReader reader,
+		@Nonnull CrowdinProject project
+	) throws XMLStreamException {
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if (!"item".equals(reader.getLocalName())) {
+				skipElement(reader);
+				continue;
+			}
+			while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				if ("code".equals(reader.getLocalName())) {
+					String code = reader.getElementText().trim();
+					if (!code.isEmpty()) {
+						project.languages.add(code);
+					}
+				} else {
+					skipElement(reader);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads an {@code <error>} element and throws an {@link IOException} with
+	 * the error code and message.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 * @throws IOException Always.
+	 */
+	protected static void readError(@Nonnull XMLStreamReader reader) throws XMLStreamException, IOException {
+		String code = null;
+		String message = null;
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "code":
+					code = reader.getElementText().trim();
+					break;
+				case "message":
+					message = reader.getElementText().trim();
+					break;
+				default:
+					skipElement(reader);
+			}
+		}
+		throw new IOException("Failed to call API - " + code + " - " + message);
+	}
+
+	/**
+	 * Skips the current element including all its content.
+	 *
+	 * @param reader the {@link XMLStreamReader} positioned at the start tag.
+	 * @throws XMLStreamException If a parsing error occurs.
+	 */
+	protected static void skipElement(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	@Nonnull
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		return factory;
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * This class represents the SHA-256 hashes of the files last uploaded to
+ * crowdin for a project and branch, mapped by crowdin path. It's used to skip
+ * uploading files that haven't changed since the previous push. Manifests are
+ * stored as properties files in a subfolder named after the crowdin project
+ * identifier, with one file for each branch.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @author Nadahar
+ */
+public class PushManifest {
+
+	/** The push manifest file name prefix */
+	protected static final String PREFIX = "push-";
+
+	/** The push manifest file extension */
+	protected static final String EXTENSION = ".properties";
+
+	/** The hashes mapped by crowdin path */
+	@Nonnull
+	protected final Properties hashes = new Properties();
+
+	/**
+	 * Returns the hash registered for the specified crowdin path.
+	 *
+	 * @param path the crowdin path.
+	 * @return The hash or {@code null}.
+	 */
+	@Nullable
+	public String get(@Nullable String path) {
+		return path == null ? null : hashes.getProperty(path);
+	}
+
+	/**
+	 * Registers the hash of a successfully uploaded file.
+	 *
+	 * @param path the crowdin path.
+	 * @param hash the hash of the uploaded file.
+	 */
+	public void put(@Nonnull String path, @Nonnull String hash) {
+		hashes.setProperty(path, hash);
+	}
+
+	/**
+	 * Checks whether the specified crowdin path is registered with the
+	 * specified hash.
+	 *
+	 * @param path the crowdin path.
+	 * @param hash the hash to compare with.
+	 * @return {@code true} if the hash matches, {@code false} otherwise.
+	 */
+	public boolean matches(@Nullable String path, @Nullable String hash) {
+		return hash != null && hash.equals(get(path));
+	}
+
+	/**
+	 * Loads the {@link PushManifest} for the specified project and branch.
+	 *
+	 * @param folder the folder where push manifests are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @param logger the {@link Log} to use for logging.
+	 * @return The {@link PushManifest}, which is empty if there is no usable
+	 *         manifest.
+	 */
+	@Nonnull
+	public static PushManifest load(
+		@Nonnull Path folder,
+		@Nonnull String identifier,
+		@Nullable String branch,
+		@Nullable Log logger
+	) {
+		Path file = getFile(folder, identifier, branch);
+		PushManifest result = new PushManifest();
+		try (InputStream is = Files.newInputStream(file)) {
+			result.hashes.load(is);
+		} catch (NoSuchFileException e) {
+			// No previous push
+		} catch (IOException | IllegalArgumentException e) {
+			if (logger != null) {
+				logger.warn("Ignoring unreadable push manifest \"" + file + "\": " + e.getMessage());
+			}
+			result.hashes.clear();
+		}
+		return result;
+	}
+
+	/**
+	 * Stores this {@link PushManifest} for the specified project and branch.
+	 * Failures are logged and otherwise ignored.
+	 *
+	 * @param folder the folder where push manifests are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @param logger the {@link Log} to use for logging.
+	 */
+	public void store(
+		@Nonnull Path folder,
+		@Nonnull String identifier,
+		@Nullable String branch,
+		@Nullable Log logger
+	) {
+		Path file = getFile(folder, identifier, branch);
+		try {
+			Files.createDirectories(file.getParent());
+			Path tempFile = Files.createTempFile(file.getParent(), PREFIX, ".tmp");
+			try {
+				try (OutputStream os = Files.newOutputStream(tempFile)) {
+					hashes.store(os, "Files pushed to " + identifier + (branch == null ? "" : " branch " + branch));
+				}
+				try {
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.warn("Failed to store push manifest \"" + file + "\": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Calculates the SHA-256 hash of the specified file followed by the
+	 * specified settings, so that a file is considered changed if any of the
+	 * settings used to upload it have changed.
+	 *
+	 * @param file the file to hash.
+	 * @param settings the settings to include in the hash.
+	 * @return The hash as a lower case hexadecimal {@link String}.
+	 * @throws IOException If an error occurs while reading {@code file}.
+	 */
+	@Nonnull
+	public static String hash(@Nonnull Path file, @Nullable String... settings) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError("SHA-256 is unsupported", e);
+		}
+		byte[] buffer = new byte[8192];
+		try (InputStream is = Files.newInputStream(file)) {
+			int count;
+			while ((count = is.read(buffer)) >= 0) {
+				digest.update(buffer, 0, count);
+			}
+		}
+		if (settings != null) {
+			for (String setting : settings) {
+				digest.update((byte) 0);
+				if (setting != null) {
+					digest.update(setting.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		}
+		StringBuilder sb = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the {@link Path} of the push manifest file for the specified
+	 * project and branch.
+	 *
+	 * @param folder the folder where push manifests are stored.
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch name or {@code null}.
+	 * @return The {@link Path}.
+	 */
+	@Nonnull
+	protected static Path getFile(@Nonnull Path folder, @Nonnull String identifier, @Nullable String branch) {
+		return folder.resolve(ProjectCache.encode(identifier)).resolve(
+			PREFIX + (branch == null ? "root" : "branch-" + ProjectCache.encode(branch)) + EXTENSION
+		);
+	}
+}
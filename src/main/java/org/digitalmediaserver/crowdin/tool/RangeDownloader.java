@@ -0,0 +1,633 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.util.EntityUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Server;
+
+
+/**
+ * Downloads a file from the crowdin API using HTTP {@code Range} requests.
+ * The file is split into a number of segments that are downloaded in
+ * parallel into a {@link #PART_EXTENSION} file, and a segment whose
+ * connection drops is resumed from where it stopped. If the download still
+ * fails, the progress is stored next to the {@link #PART_EXTENSION} file so
+ * that the next download of the same file can continue where this one
+ * stopped.
+ * <p>
+ * If the server doesn't support ranges, the file is downloaded as a single
+ * stream.
+ *
+ * @author Nadahar
+ */
+public class RangeDownloader {
+
+	/** The extension of the file being downloaded */
+	public static final String PART_EXTENSION = ".part";
+
+	/** The extension of the download state file */
+	public static final String STATE_EXTENSION = ".state";
+
+	/** The minimum size of a segment in bytes */
+	public static final long MIN_SEGMENT_SIZE = 256 * 1024;
+
+	/** The {@link Pattern} used to parse {@code Content-Range} */
+	protected static final Pattern CONTENT_RANGE = Pattern.compile(
+		"bytes\\s+(?:\\d+-\\d+|\\*)/(\\d+)",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	/** The thread counter used for naming */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/** The {@link HttpClient} to use */
+	@Nonnull
+	protected final HttpClient httpClient;
+
+	/** The {@link Server} to use for crowdin credentials */
+	@Nonnull
+	protected final Server server;
+
+	/** The API method to use */
+	@Nonnull
+	protected final String method;
+
+	/** The API parameters to use */
+	@Nullable
+	protected final Map<String, String> parameters;
+
+	/** The maximum number of segments */
+	protected final int segments;
+
+	/** The maximum number of consecutive failed attempts per segment */
+	protected final int maxAttempts;
+
+	/** The delay in milliseconds before resuming a segment */
+	protected final long retryDelay;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param httpClient the {@link HttpClient} to use.
+	 * @param server the {@link Server} to use for crowdin credentials.
+	 * @param method the API method to use.
+	 * @param parameters the {@link Map} of API parameters to use.
+	 * @param segments the maximum number of segments to download in parallel.
+	 * @param maxAttempts the maximum number of consecutive failed attempts
+	 *            for a segment.
+	 * @param retryDelay the delay in milliseconds before resuming a segment.
+	 *            It's multiplied by the number of consecutive failures.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public RangeDownloader(
+		@Nonnull HttpClient httpClient,
+		@Nonnull Server server,
+		@Nonnull String method,
+		@Nullable Map<String, String> parameters,
+		int segments,
+		int maxAttempts,
+		long retryDelay,
+		@Nullable Log logger
+	) {
+		this.httpClient = httpClient;
+		this.server = server;
+		this.method = method;
+		this.parameters = parameters;
+		this.segments = Math.max(segments, 1);
+		this.maxAttempts = Math.max(maxAttempts, 1);
+		this.retryDelay = Math.max(retryDelay, 0L);
+		this.logger = logger;
+	}
+
+	/**
+	 * Downloads the file to the specified target. Any existing target file is
+	 * replaced.
+	 *
+	 * @param target the {@link Path} to download to.
+	 * @return The size of the downloaded file.
+	 * @throws HttpResponseException If the server returns an unexpected status
+	 *             code.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public long download(@Nonnull Path target) throws IOException {
+		Path part = target.resolveSibling(target.getFileName() + PART_EXTENSION);
+		Path stateFile = target.resolveSibling(target.getFileName() + PART_EXTENSION + STATE_EXTENSION);
+		Path parent = target.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		// Probe with a single byte to find the length and whether ranges are supported
+		long length;
+		String validator;
+		HttpResponse response = request("bytes=0-0", null);
+		try {
+			int returnCode = response.getStatusLine().getStatusCode();
+			if (returnCode == 200) {
+				if (logger != null) {
+					logger.debug("The server doesn't support ranges for \"" + method + "\", downloading as a single stream");
+				}
+				return downloadWhole(response, part, stateFile, target);
+			}
+			if (returnCode != 206) {
+				throw new HttpResponseException(
+					returnCode,
+					"Failed to download \"" + method + "\" with return code " + returnCode
+				);
+			}
+			length = getLength(response);
+			validator = getValidator(response);
+		} finally {
+			EntityUtils.consumeQuietly(response.getEntity());
+		}
+		if (length < 0) {
+			if (logger != null) {
+				logger.debug("The length of \"" + method + "\" is unknown, downloading as a single stream");
+			}
+			response = request(null, null);
+			try {
+				int returnCode = response.getStatusLine().getStatusCode();
+				if (returnCode != 200) {
+					throw new HttpResponseException(
+						returnCode,
+						"Failed to download \"" + method + "\" with return code " + returnCode
+					);
+				}
+				return downloadWhole(response, part, stateFile, target);
+			} finally {
+				EntityUtils.consumeQuietly(response.getEntity());
+			}
+		}
+
+		List<Segment> plan = loadState(stateFile, part, length, validator);
+		if (plan == null) {
+			plan = createPlan(length);
+			Files.deleteIfExists(part);
+		} else if (logger != null) {
+			long done = 0;
+			for (Segment segment : plan) {
+				done += segment.position - segment.start;
+			}
+			logger.info("Resuming download of \"" + method + "\" (" + done + " of " + length + " bytes done)");
+		}
+		storeState(stateFile, length, validator, plan);
+
+		IOException failure;
+		try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			failure = download(plan, channel, validator);
+		}
+		if (failure != null) {
+			if (failure instanceof HttpResponseException) {
+				// The file has changed or ranges are no longer supported, start over the next time
+				Files.deleteIfExists(stateFile);
+				Files.deleteIfExists(part);
+			} else {
+				storeState(stateFile, length, validator, plan);
+			}
+			throw failure;
+		}
+		if (Files.size(part) != length) {
+			Files.deleteIfExists(stateFile);
+			throw new IOException("The downloaded size of \"" + method + "\" doesn't match the expected " + length + " bytes");
+		}
+		Files.deleteIfExists(stateFile);
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		return length;
+	}
+
+	/**
+	 * Downloads the incomplete segments of the specified plan, in parallel if
+	 * there are more than one.
+	 *
+	 * @param plan the {@link List} of {@link Segment}s.
+	 * @param channel the {@link FileChannel} to write to.
+	 * @param validator the {@code If-Range} validator or {@code null}.
+	 * @return The first {@link IOException} or {@code null} if all segments
+	 *         were downloaded.
+	 */
+	@Nullable
+	protected IOException download(
+		@Nonnull List<Segment> plan,
+		@Nonnull final FileChannel channel,
+		@Nullable final String validator
+	) {
+		List<Segment> remaining = new ArrayList<>();
+		for (Segment segment : plan) {
+			if (!segment.isComplete()) {
+				remaining.add(segment);
+			}
+		}
+		if (remaining.isEmpty()) {
+			return null;
+		}
+		if (remaining.size() == 1) {
+			try {
+				download(remaining.get(0), channel, validator);
+				return null;
+			} catch (IOException e) {
+				return e;
+			}
+		}
+
+		if (logger != null) {
+			logger.debug("Downloading \"" + method + "\" in " + remaining.size() + " segments");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(remaining.size(), new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "crowdin-download-" + THREAD_COUNTER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<Void>> futures = new ArrayList<>(remaining.size());
+			for (final Segment segment : remaining) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws IOException {
+						download(segment, channel, validator);
+						return null;
+					}
+				}));
+			}
+
+			// Wait for all, reporting the first failure in submission order
+			IOException exception = null;
+			for (Future<Void> future : futures) {
+				try {
+					AsyncCrowdinAPI.get(future);
+				} catch (IOException e) {
+					if (exception == null) {
+						exception = e;
+					}
+				}
+			}
+			return exception;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Downloads a single {@link Segment}, resuming from the current position
+	 * if the connection fails.
+	 *
+	 * @param segment the {@link Segment} to download.
+	 * @param channel the {@link FileChannel} to write to.
+	 * @param validator the {@code If-Range} validator or {@code null}.
+	 * @throws HttpResponseException If the server doesn't honour the range.
+	 * @throws IOException If the segment fails too many times in a row.
+	 */
+	protected void download(
+		@Nonnull Segment segment,
+		@Nonnull FileChannel channel,
+		@Nullable String validator
+	) throws IOException {
+		byte[] buffer = new byte[ZipExtractor.BUFFER_SIZE];
+		int attempt = 0;
+		while (!segment.isComplete()) {
+			long start = segment.position;
+			try {
+				HttpResponse response = request("bytes=" + segment.position + "-" + segment.end, validator);
+				try {
+					int returnCode = response.getStatusLine().getStatusCode();
+					if (returnCode != 206) {
+						throw new HttpResponseException(
+							returnCode,
+							"The server didn't return the requested range of \"" + method + "\" (return code " +
+							returnCode + ")"
+						);
+					}
+					try (InputStream is = response.getEntity().getContent()) {
+						int read;
+						while (
+							!segment.isComplete() &&
+							(read = is.read(buffer, 0, (int) Math.min(buffer.length, segment.end - segment.position + 1))) != -1
+						) {
+							ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+							long position = segment.position;
+							while (byteBuffer.hasRemaining()) {
+								position += channel.write(byteBuffer, position);
+							}
+							segment.position = position;
+						}
+					}
+				} finally {
+					EntityUtils.consumeQuietly(response.getEntity());
+				}
+				if (!segment.isComplete()) {
+					throw new EOFException("Premature end of stream at position " + segment.position);
+				}
+			} catch (HttpResponseException e) {
+				throw e;
+			} catch (IOException e) {
+				if (segment.position > start) {
+					attempt = 0;
+				}
+				if (++attempt >= maxAttempts) {
+					throw e;
+				}
+				long delay = retryDelay * attempt;
+				if (logger != null) {
+					logger.warn(
+						"Download of \"" + method + "\" was interrupted at position " + segment.position + " (" +
+						e.getClass().getSimpleName() + ": " + e.getMessage() + "), resuming in " + delay + " ms (" +
+						attempt + "/" + (maxAttempts - 1) + ")"
+					);
+				}
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting to resume the download");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the entity of the specified {@link HttpResponse} to {@code part}
+	 * and moves it to {@code target}.
+	 *
+	 * @param response the {@link HttpResponse} containing the whole file.
+	 * @param part the {@link Path} of the {@link #PART_EXTENSION} file.
+	 * @param stateFile the {@link Path} of the state file.
+	 * @param target the {@link Path} of the target file.
+	 * @return The size of the downloaded file.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected long downloadWhole(
+		@Nonnull HttpResponse response,
+		@Nonnull Path part,
+		@Nonnull Path stateFile,
+		@Nonnull Path target
+	) throws IOException {
+		Files.deleteIfExists(stateFile);
+		long result;
+		try (
+			InputStream is = response.getEntity().getContent();
+			OutputStream os = Files.newOutputStream(part)
+		) {
+			result = ZipExtractor.copy(is, os, new byte[ZipExtractor.BUFFER_SIZE]);
+		}
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		return result;
+	}
+
+	/**
+	 * Splits a file of the specified length into segments.
+	 *
+	 * @param length the file length.
+	 * @return The {@link List} of {@link Segment}s.
+	 */
+	@Nonnull
+	protected List<Segment> createPlan(long length) {
+		int count = (int) Math.max(Math.min(segments, (length + MIN_SEGMENT_SIZE - 1) / MIN_SEGMENT_SIZE), 1L);
+		long size = (length + count - 1) / count;
+		List<Segment> result = new ArrayList<>(count);
+		for (long start = 0; start < length; start += size) {
+			result.add(new Segment(start, Math.min(start + size, length) - 1, start));
+		}
+		if (result.isEmpty()) {
+			// Zero length
+			result.add(new Segment(0, -1, 0));
+		}
+		return result;
+	}
+
+	/**
+	 * Makes a GET request with the specified {@code Range} and
+	 * {@code If-Range} headers.
+	 *
+	 * @param range the {@code Range} value without unit or {@code null}.
+	 * @param ifRange the {@code If-Range} value or {@code null}.
+	 * @return The {@link HttpResponse}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected HttpResponse request(@Nullable String range, @Nullable String ifRange) throws IOException {
+		Map<String, String> headers = new HashMap<>();
+		if (range != null) {
+			headers.put("Range", range);
+		}
+		if (ifRange != null) {
+			headers.put("If-Range", ifRange);
+		}
+		return CrowdinAPI.requestGet(httpClient, server, method, parameters, headers, logger);
+	}
+
+	/**
+	 * Loads the download state and verifies that it matches the current
+	 * file.
+	 *
+	 * @param stateFile the {@link Path} of the state file.
+	 * @param part the {@link Path} of the {@link #PART_EXTENSION} file.
+	 * @param length the current file length.
+	 * @param validator the current validator or {@code null}.
+	 * @return The {@link List} of {@link Segment}s or {@code null} if there's
+	 *         no usable state.
+	 */
+	@Nullable
+	protected List<Segment> loadState(
+		@Nonnull Path stateFile,
+		@Nonnull Path part,
+		long length,
+		@Nullable String validator
+	) {
+		if (validator == null || !Files.isRegularFile(part)) {
+			return null;
+		}
+		Properties state = new Properties();
+		try (InputStream is = Files.newInputStream(stateFile)) {
+			state.load(is);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.debug("Ignoring unreadable download state \"" + stateFile + "\": " + e.getMessage());
+			}
+			return null;
+		}
+		try {
+			if (Long.parseLong(state.getProperty("length", "-1")) != length || !validator.equals(state.getProperty("validator"))) {
+				return null;
+			}
+			int count = Integer.parseInt(state.getProperty("segments", "0"));
+			List<Segment> result = new ArrayList<>(count);
+			long next = 0;
+			for (int i = 0; i < count; i++) {
+				String[] values = state.getProperty("segment." + i, "").split("-");
+				Segment segment = new Segment(Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]));
+				if (
+					segment.start != next ||
+					segment.position < segment.start ||
+					segment.position > segment.end + 1
+				) {
+					return null;
+				}
+				next = segment.end + 1;
+				result.add(segment);
+			}
+			return next == length && !result.isEmpty() ? result : null;
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the download state.
+	 *
+	 * @param stateFile the {@link Path} of the state file.
+	 * @param length the file length.
+	 * @param validator the validator or {@code null}.
+	 * @param plan the {@link List} of {@link Segment}s.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected void storeState(
+		@Nonnull Path stateFile,
+		long length,
+		@Nullable String validator,
+		@Nonnull List<Segment> plan
+	) throws IOException {
+		if (validator == null) {
+			// Without a validator a partial download can't be safely resumed
+			Files.deleteIfExists(stateFile);
+			return;
+		}
+		Properties state = new Properties();
+		state.setProperty("length", Long.toString(length));
+		state.setProperty("validator", validator);
+		state.setProperty("segments", Integer.toString(plan.size()));
+		for (int i = 0; i < plan.size(); i++) {
+			Segment segment = plan.get(i);
+			state.setProperty("segment." + i, segment.start + "-" + segment.end + "-" + segment.position);
+		}
+		try (OutputStream os = Files.newOutputStream(stateFile)) {
+			state.store(os, "Download state for " + method);
+		}
+	}
+
+	/**
+	 * Returns the total length from the {@code Content-Range} header of the
+	 * specified {@link HttpResponse}.
+	 *
+	 * @param response the {@link HttpResponse}.
+	 * @return The total length or {@code -1} if it's unknown.
+	 */
+	protected static long getLength(@Nonnull HttpResponse response) {
+		Header header = response.getFirstHeader("Content-Range");
+		if (header == null || header.getValue() == null) {
+			return -1L;
+		}
+		Matcher matcher = CONTENT_RANGE.matcher(header.getValue().trim());
+		return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1L;
+	}
+
+	/**
+	 * Returns a strong validator that can be used with {@code If-Range} from
+	 * the specified {@link HttpResponse}.
+	 *
+	 * @param response the {@link HttpResponse}.
+	 * @return The {@code ETag} or {@code Last-Modified} value or {@code null}.
+	 */
+	@Nullable
+	protected static String getValidator(@Nonnull HttpResponse response) {
+		Header header = response.getFirstHeader("ETag");
+		if (header != null && header.getValue() != null && !header.getValue().startsWith("W/")) {
+			return header.getValue();
+		}
+		header = response.getFirstHeader("Last-Modified");
+		return header == null ? null : header.getValue();
+	}
+
+	/**
+	 * This class represents a range of bytes to download.
+	 */
+	protected static class Segment {
+
+		/** The first byte */
+		protected final long start;
+
+		/** The last byte */
+		protected final long end;
+
+		/** The next byte to download */
+		protected volatile long position;
+
+		/**
+		 * Creates a new instance using the specified parameters.
+		 *
+		 * @param start the first byte.
+		 * @param end the last byte.
+		 * @param position the next byte to download.
+		 */
+		public Segment(long start, long end, long position) {
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+
+		/**
+		 * @return {@code true} if all bytes have been downloaded, {@code false}
+		 *         otherwise.
+		 */
+		public boolean isComplete() {
+			return position > end;
+		}
+	}
+}
@@ -0,0 +1,394 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.net.ssl.SSLException;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * The retry policy for crowdin API calls. It handles both I/O errors and
+ * transient HTTP status codes, using jittered exponential backoff or the
+ * delay requested by the server with {@code Retry-After}.
+ * <p>
+ * Idempotent API methods ({@code info}, {@code status}, {@code download} etc.)
+ * are retried on any transient failure. Mutating API methods are only retried
+ * if the request never reached the server (connection failures) or if the
+ * server explicitly rejected it with {@code 429 Too Many Requests}.
+ * <p>
+ * When installed on the HTTP client, only failures that occur before the
+ * response headers have been received are retried. Failures while the
+ * response body is read, like a connection reset halfway through a download,
+ * are only retried by callers that read the body through
+ * {@link #execute(String, BodyReader)}.
+ *
+ * @author Nadahar
+ */
+@ThreadSafe
+public class RetryStrategy implements HttpRequestRetryHandler, ServiceUnavailableRetryStrategy {
+
+	/** The crowdin API methods that can safely be repeated */
+	protected static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+		"info",
+		"status",
+		"export",
+		"export-status",
+		"language-status",
+		"supported-languages"
+	)));
+
+	/** The path prefix of all crowdin API calls */
+	protected static final String API_PATH = URI.create(Constants.API_URL).getPath();
+
+	/** The maximum number of retries */
+	protected final int maxRetries;
+
+	/** The initial retry delay in milliseconds */
+	protected final long initialDelay;
+
+	/** The maximum retry delay in milliseconds */
+	protected final long maxDelay;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/**
+	 * The delay calculated by the last call to
+	 * {@link #retryRequest(HttpResponse, int, HttpContext)} on this thread
+	 */
+	protected final ThreadLocal<Long> retryInterval = new ThreadLocal<>();
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param maxRetries the maximum number of retries, {@code 0} disables
+	 *            retrying.
+	 * @param initialDelay the delay in milliseconds before the first retry.
+	 *            The delay is doubled for each subsequent retry.
+	 * @param maxDelay the maximum delay in milliseconds between retries
+	 *            unless the server asks for a longer delay.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public RetryStrategy(int maxRetries, long initialDelay, long maxDelay, @Nullable Log logger) {
+		this.maxRetries = Math.max(maxRetries, 0);
+		this.initialDelay = Math.max(initialDelay, 1L);
+		this.maxDelay = Math.max(maxDelay, this.initialDelay);
+		this.logger = logger;
+	}
+
+	@Override
+	public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+		if (executionCount > maxRetries || exception instanceof UnknownHostException || exception instanceof SSLException) {
+			return false;
+		}
+		HttpClientContext clientContext = HttpClientContext.adapt(context);
+		HttpRequest request = clientContext.getRequest();
+		if (request instanceof HttpUriRequest && ((HttpUriRequest) request).isAborted()) {
+			return false;
+		}
+		if (
+			exception instanceof InterruptedIOException &&
+			!(exception instanceof SocketTimeoutException) &&
+			!(exception instanceof ConnectTimeoutException)
+		) {
+			return false;
+		}
+		String method = getAPIMethod(request);
+		if (!isIdempotent(method) && clientContext.isRequestSent()) {
+			return false;
+		}
+		long delay = getBackoffDelay(executionCount);
+		if (logger != null) {
+			logger.warn(
+				"Crowdin API call \"" + method + "\" failed (" + exception.getClass().getSimpleName() + ": " +
+				exception.getMessage() + "), retrying in " + delay + " ms (" + executionCount + "/" + maxRetries + ")"
+			);
+		}
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
+		if (executionCount > maxRetries) {
+			return false;
+		}
+		int statusCode = response.getStatusLine().getStatusCode();
+		String method = getAPIMethod(HttpClientContext.adapt(context).getRequest());
+		switch (statusCode) {
+			case 429:
+				// The request was rejected without being processed
+				break;
+			case HttpStatus.SC_BAD_GATEWAY:
+			case HttpStatus.SC_SERVICE_UNAVAILABLE:
+			case HttpStatus.SC_GATEWAY_TIMEOUT:
+				if (!isIdempotent(method)) {
+					return false;
+				}
+				break;
+			default:
+				return false;
+		}
+		long delay = getRetryAfter(response);
+		if (delay < 0) {
+			delay = getBackoffDelay(executionCount);
+		}
+		retryInterval.set(Long.valueOf(delay));
+		if (logger != null) {
+			logger.warn(
+				"Crowdin API call \"" + method + "\" returned " + statusCode + ", retrying in " + delay +
+				" ms (" + executionCount + "/" + maxRetries + ")"
+			);
+		}
+		return true;
+	}
+
+	@Override
+	public long getRetryInterval() {
+		Long result = retryInterval.get();
+		retryInterval.remove();
+		return result == null ? initialDelay : result.longValue();
+	}
+
+	/**
+	 * Makes a request and reads the response body, repeating both if the
+	 * connection fails while the body is being read. Failures before the
+	 * response is received are left to the HTTP client, so only use this for
+	 * idempotent API methods whose body can be read again from scratch.
+	 *
+	 * @param <T> the result type.
+	 * @param <E> the additional exception type thrown by {@code reader}.
+	 * @param method the API method, used for logging.
+	 * @param reader the {@link BodyReader} that makes the request and reads
+	 *            the response.
+	 * @return The result of {@link BodyReader#read(HttpResponse)}.
+	 * @throws IOException If an error occurs during the operation.
+	 * @throws E If {@code reader} throws it.
+	 */
+	public <T, E extends Exception> T execute(
+		@Nullable String method,
+		@Nonnull BodyReader<T, E> reader
+	) throws IOException, E {
+		for (int executionCount = 1;; executionCount++) {
+			HttpResponse response = reader.request();
+			try {
+				return reader.read(response);
+			} catch (IOException e) {
+				if (executionCount > maxRetries || !isBodyFailure(e)) {
+					throw e;
+				}
+				long delay = getBackoffDelay(executionCount);
+				if (logger != null) {
+					logger.warn(
+						"Reading the response to crowdin API call \"" + method + "\" failed (" +
+						e.getClass().getSimpleName() + ": " + e.getMessage() + "), retrying in " + delay +
+						" ms (" + executionCount + "/" + maxRetries + ")"
+					);
+				}
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			} finally {
+				EntityUtils.consumeQuietly(response.getEntity());
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the specified {@link IOException}, or one of its causes,
+	 * is caused by the connection failing while the response body was being
+	 * read.
+	 *
+	 * @param exception the {@link IOException} to check.
+	 * @return {@code true} if reading the body again might succeed,
+	 *         {@code false} otherwise.
+	 */
+	protected static boolean isBodyFailure(@Nonnull IOException exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (
+				cause instanceof SocketException ||
+				cause instanceof SocketTimeoutException ||
+				cause instanceof ConnectionClosedException ||
+				cause instanceof MalformedChunkCodingException ||
+				cause instanceof EOFException
+			) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates the jittered exponential backoff delay for the specified
+	 * attempt. The delay is randomly chosen between half and all of the
+	 * exponential delay, which is capped at {@link #maxDelay}.
+	 *
+	 * @param executionCount the number of failed executions so far.
+	 * @return The delay in milliseconds.
+	 */
+	protected long getBackoffDelay(int executionCount) {
+		long delay = initialDelay;
+		for (int i = 1; i < executionCount && delay < maxDelay; i++) {
+			delay *= 2;
+		}
+		delay = Math.min(delay, maxDelay);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	/**
+	 * Parses the {@code Retry-After} header of the specified
+	 * {@link HttpResponse} if present. Both the delta-seconds and the HTTP-date
+	 * forms are supported.
+	 *
+	 * @param response the {@link HttpResponse}.
+	 * @return The requested delay in milliseconds or {@code -1} if no valid
+	 *         {@code Retry-After} header is present.
+	 */
+	protected static long getRetryAfter(HttpResponse response) {
+		Header header = response.getFirstHeader("Retry-After");
+		if (header == null || header.getValue() == null) {
+			return -1L;
+		}
+		String value = header.getValue().trim();
+		try {
+			return Math.max(Long.parseLong(value) * 1000L, 0L);
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(value);
+			if (date == null) {
+				return -1L;
+			}
+			return Math.max(date.getTime() - System.currentTimeMillis(), 0L);
+		}
+	}
+
+	/**
+	 * Extracts the crowdin API method name from the specified request.
+	 *
+	 * @param request the {@link HttpRequest}.
+	 * @return The API method or {@code null} if it can't be determined.
+	 */
+	@Nullable
+	protected static String getAPIMethod(@Nullable HttpRequest request) {
+		if (request == null) {
+			return null;
+		}
+		String path;
+		if (request instanceof HttpUriRequest) {
+			path = ((HttpUriRequest) request).getURI().getPath();
+		} else {
+			path = URI.create(request.getRequestLine().getUri()).getPath();
+		}
+		if (path == null || !path.startsWith(API_PATH)) {
+			return null;
+		}
+		// Skip the project identifier
+		int slash = path.indexOf('/', API_PATH.length());
+		return slash < 0 ? null : path.substring(slash + 1);
+	}
+
+	/**
+	 * Checks whether the specified API method can safely be repeated.
+	 *
+	 * @param method the API method.
+	 * @return {@code true} if {@code method} is idempotent, {@code false}
+	 *         otherwise.
+	 */
+	public static boolean isIdempotent(@Nullable String method) {
+		if (method == null) {
+			return false;
+		}
+		return IDEMPOTENT_METHODS.contains(method) || method.startsWith("download");
+	}
+
+	@Override
+	public String toString() {
+		return
+			getClass().getSimpleName() + " [maxRetries=" + maxRetries + ", initialDelay=" + initialDelay +
+			", maxDelay=" + maxDelay + "]";
+	}
+
+	/**
+	 * Makes a request and reads its response for
+	 * {@link RetryStrategy#execute(String, BodyReader)}.
+	 *
+	 * @param <T> the result type.
+	 * @param <E> the additional exception type.
+	 */
+	public interface BodyReader<T, E extends Exception> {
+
+		/**
+		 * Makes the request.
+		 *
+		 * @return The {@link HttpResponse}.
+		 * @throws IOException If an error occurs during the operation.
+		 * @throws E If the response isn't usable.
+		 */
+		@Nonnull
+		HttpResponse request() throws IOException, E;
+
+		/**
+		 * Reads the response. The entity is consumed by the caller afterwards.
+		 *
+		 * @param response the {@link HttpResponse} to read.
+		 * @return The result.
+		 * @throws IOException If an error occurs during the operation.
+		 * @throws E If an error occurs during the operation.
+		 */
+		T read(@Nonnull HttpResponse response) throws IOException, E;
+	}
+}
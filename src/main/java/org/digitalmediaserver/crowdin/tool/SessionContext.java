@@ -0,0 +1,455 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * This class holds state that is shared by all crowdin goals executed within
+ * the same {@link MavenSession}, so that e.g. pooled HTTP connections can be
+ * reused across goals and reactor modules.
+ * <p>
+ * Git branches, crowdin project information and resolved crowdin branches are
+ * also memoized for the duration of the session. Memoized project information
+ * is discarded when the crowdin file tree is modified, see
+ * {@link #invalidateProjectInfo(String)}.
+ * <p>
+ * Only one {@link SessionContext} is kept at any time. It's closed when the
+ * {@link MavenSession} ends, or if a new {@link MavenSession} is encountered
+ * first.
+ *
+ * @author Nadahar
+ */
+@ThreadSafe
+public class SessionContext {
+
+	/** The lock protecting {@link #current} */
+	private static final Object LOCK = new Object();
+
+	/** The current {@link SessionContext} */
+	private static SessionContext current;
+
+	/** The {@link MavenSession} this {@link SessionContext} belongs to */
+	@Nonnull
+	private final WeakReference<MavenSession> session;
+
+	/** The shared HTTP client */
+	@Nullable
+	private CloseableHttpClient httpClient;
+
+	/** The settings {@link #httpClient} was created with */
+	@Nullable
+	private String httpClientSettings;
+
+	/** The memoized git branches by project base folder */
+	private final Map<String, String> gitBranches = new HashMap<>();
+
+	/** The memoized project information by project identifier and scope */
+	private final Map<String, CrowdinProject> projects = new HashMap<>();
+
+	/** The memoized crowdin branches by project identifier and git branch */
+	private final Map<String, String> branches = new HashMap<>();
+
+	/**
+	 * Creates a new instance for the specified {@link MavenSession}.
+	 *
+	 * @param session the {@link MavenSession}.
+	 */
+	protected SessionContext(@Nonnull MavenSession session) {
+		this.session = new WeakReference<MavenSession>(session);
+	}
+
+	/**
+	 * Returns the {@link SessionContext} for the specified
+	 * {@link MavenSession}, creating it if needed.
+	 *
+	 * @param session the {@link MavenSession}.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The {@link SessionContext} for {@code session}.
+	 */
+	@Nonnull
+	public static SessionContext get(@Nonnull MavenSession session, @Nullable Log logger) {
+		synchronized (LOCK) {
+			if (current != null && current.session.get() != session) {
+				current.close(logger);
+				current = null;
+			}
+			if (current == null) {
+				current = new SessionContext(session);
+				MavenExecutionRequest request = session.getRequest();
+				if (request != null) {
+					request.setExecutionListener(
+						new SessionEndListener(request.getExecutionListener(), current, logger)
+					);
+				}
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Returns the shared {@link CloseableHttpClient}, creating it with the
+	 * specified settings if it doesn't already exist. The settings are ignored
+	 * if the client has already been created, in which case a warning is
+	 * logged if they differ from those the client was created with.
+	 *
+	 * @param maxConnections the maximum total number of pooled connections.
+	 * @param maxConnectionsPerRoute the maximum number of pooled connections
+	 *            per route.
+	 * @param keepAlive the maximum time in milliseconds to keep idle
+	 *            connections alive.
+	 * @param retryStrategy the {@link RetryStrategy} to use for failed
+	 *            requests or {@code null} to disable retrying.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The shared {@link CloseableHttpClient}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public synchronized CloseableHttpClient getHttpClient(
+		int maxConnections,
+		int maxConnectionsPerRoute,
+		long keepAlive,
+		@Nullable RetryStrategy retryStrategy,
+		@Nullable Log logger
+	) throws IOException {
+		String settings =
+			"maxConnections=" + maxConnections + ", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+			", keepAlive=" + keepAlive + " ms, " + (retryStrategy == null ? "no retries" : retryStrategy);
+		if (httpClient == null) {
+			httpClient = CrowdinAPI.createHTTPClient(maxConnections, maxConnectionsPerRoute, keepAlive, retryStrategy);
+			httpClientSettings = settings;
+		} else if (logger != null && !settings.equals(httpClientSettings)) {
+			logger.warn(
+				"Ignoring the HTTP client settings (" + settings + ") since the HTTP client shared by this " +
+				"Maven session was created with different settings (" + httpClientSettings + ")"
+			);
+		}
+		return httpClient;
+	}
+
+	/**
+	 * Returns the memoized git branch for the specified project base folder.
+	 *
+	 * @param baseFolder the project base folder.
+	 * @return The git branch or {@code null} if it isn't memoized.
+	 */
+	@Nullable
+	public synchronized String getGitBranch(@Nonnull String baseFolder) {
+		return gitBranches.get(baseFolder);
+	}
+
+	/**
+	 * Memoizes the git branch for the specified project base folder.
+	 *
+	 * @param baseFolder the project base folder.
+	 * @param branch the git branch.
+	 */
+	public synchronized void setGitBranch(@Nonnull String baseFolder, @Nonnull String branch) {
+		gitBranches.put(baseFolder, branch);
+	}
+
+	/**
+	 * Returns memoized project information covering the specified scope. If
+	 * {@code prune} is {@code true} and there is no memoized project
+	 * information for the pruned scope, unpruned project information is
+	 * returned if memoized.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param branch the branch to prune to if {@code prune} is {@code true}.
+	 * @param prune whether the file tree should be pruned.
+	 * @return The {@link CrowdinProject} or {@code null} if it isn't memoized.
+	 */
+	@Nullable
+	public synchronized CrowdinProject getProjectInfo(@Nonnull String identifier, @Nullable String branch, boolean prune) {
+		CrowdinProject result = projects.get(getProjectKey(identifier, branch, prune));
+		if (result == null && prune) {
+			result = projects.get(getProjectKey(identifier, null, false));
+		}
+		return result;
+	}
+
+	/**
+	 * Memoizes the specified project information.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param project the {@link CrowdinProject}.
+	 */
+	public synchronized void setProjectInfo(@Nonnull String identifier, @Nonnull CrowdinProject project) {
+		projects.put(getProjectKey(identifier, project.getBranchFilter(), project.isPruned()), project);
+	}
+
+	/**
+	 * Returns the memoized crowdin branch for the specified git branch.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param gitBranch the git branch.
+	 * @return The crowdin branch or {@code null} if it isn't memoized.
+	 */
+	@Nullable
+	public synchronized String getBranch(@Nonnull String identifier, @Nonnull String gitBranch) {
+		return branches.get(identifier + '\u0000' + gitBranch);
+	}
+
+	/**
+	 * Memoizes the crowdin branch for the specified git branch.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 * @param gitBranch the git branch.
+	 * @param branch the crowdin branch.
+	 */
+	public synchronized void setBranch(@Nonnull String identifier, @Nonnull String gitBranch, @Nonnull String branch) {
+		branches.put(identifier + '\u0000' + gitBranch, branch);
+	}
+
+	/**
+	 * Discards all memoized project information for the specified project in
+	 * the current {@link SessionContext}, if any.
+	 *
+	 * @param identifier the crowdin project identifier.
+	 */
+	public static void invalidateProjectInfo(@Nullable String identifier) {
+		if (identifier == null) {
+			return;
+		}
+		SessionContext context;
+		synchronized (LOCK) {
+			context = current;
+		}
+		if (context == null) {
+			return;
+		}
+		String prefix = identifier + '\u0000';
+		synchronized (context) {
+			for (Iterator<String> iterator = context.projects.keySet().iterator(); iterator.hasNext();) {
+				if (iterator.next().startsWith(prefix)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	@Nonnull
+	private static String getProjectKey(@Nonnull String identifier, @Nullable String branch, boolean prune) {
+		if (!prune) {
+			return identifier + "\u0000all";
+		}
+		return branch == null ? identifier + "\u0000root" : identifier + "\u0000branch\u0000" + branch;
+	}
+
+	/**
+	 * Releases any resources held by this {@link SessionContext}.
+	 *
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	protected synchronized void close(@Nullable Log logger) {
+		if (httpClient != null) {
+			try {
+				httpClient.close();
+			} catch (IOException e) {
+				if (logger != null) {
+					logger.debug("An error occurred while closing the HTTP client: " + e.getMessage());
+				}
+			}
+			httpClient = null;
+			httpClientSettings = null;
+		}
+		gitBranches.clear();
+		projects.clear();
+		branches.clear();
+	}
+
+	/**
+	 * An {@link ExecutionListener} that closes a {@link SessionContext} when
+	 * the {@link MavenSession} ends. All events are passed on to the
+	 * {@link ExecutionListener} it replaces.
+	 */
+	protected static class SessionEndListener implements ExecutionListener {
+
+		/** The replaced {@link ExecutionListener} */
+		@Nullable
+		protected final ExecutionListener delegate;
+
+		/** The {@link SessionContext} to close */
+		@Nonnull
+		protected final SessionContext context;
+
+		/** The {@link Log} instance to use for logging */
+		@Nullable
+		protected final Log logger;
+
+		/**
+		 * Creates a new instance using the specified parameters.
+		 *
+		 * @param delegate the replaced {@link ExecutionListener}.
+		 * @param context the {@link SessionContext} to close.
+		 * @param logger the {@link Log} instance to use for logging.
+		 */
+		public SessionEndListener(
+			@Nullable ExecutionListener delegate,
+			@Nonnull SessionContext context,
+			@Nullable Log logger
+		) {
+			this.delegate = delegate;
+			this.context = context;
+			this.logger = logger;
+		}
+
+		@Override
+		public void sessionEnded(ExecutionEvent event) {
+			try {
+				if (delegate != null) {
+					delegate.sessionEnded(event);
+				}
+			} finally {
+				synchronized (LOCK) {
+					if (current == context) {
+						current = null;
+					}
+				}
+				context.close(logger);
+			}
+		}
+
+		@Override
+		public void projectDiscoveryStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.projectDiscoveryStarted(event);
+			}
+		}
+
+		@Override
+		public void sessionStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.sessionStarted(event);
+			}
+		}
+
+		@Override
+		public void projectSkipped(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.projectSkipped(event);
+			}
+		}
+
+		@Override
+		public void projectStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.projectStarted(event);
+			}
+		}
+
+		@Override
+		public void projectSucceeded(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.projectSucceeded(event);
+			}
+		}
+
+		@Override
+		public void projectFailed(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.projectFailed(event);
+			}
+		}
+
+		@Override
+		public void mojoSkipped(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.mojoSkipped(event);
+			}
+		}
+
+		@Override
+		public void mojoStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.mojoStarted(event);
+			}
+		}
+
+		@Override
+		public void mojoSucceeded(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.mojoSucceeded(event);
+			}
+		}
+
+		@Override
+		public void mojoFailed(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.mojoFailed(event);
+			}
+		}
+
+		@Override
+		public void forkStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkStarted(event);
+			}
+		}
+
+		@Override
+		public void forkSucceeded(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkSucceeded(event);
+			}
+		}
+
+		@Override
+		public void forkFailed(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkFailed(event);
+			}
+		}
+
+		@Override
+		public void forkedProjectStarted(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkedProjectStarted(event);
+			}
+		}
+
+		@Override
+		public void forkedProjectSucceeded(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkedProjectSucceeded(event);
+			}
+		}
+
+		@Override
+		public void forkedProjectFailed(ExecutionEvent event) {
+			if (delegate != null) {
+				delegate.forkedProjectFailed(event);
+			}
+		}
+	}
+}
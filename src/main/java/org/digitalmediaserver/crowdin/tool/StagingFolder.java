@@ -0,0 +1,298 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * This class represents a staging folder next to a "live" folder. Files are
+ * written to the staging folder and it replaces the live folder by renaming
+ * when {@link #commit()} is called, so that the live folder always holds the
+ * result of the last successful operation. The replaced folder is deleted in
+ * the background.
+ * <p>
+ * Leftovers from interrupted operations are deleted in the background when a
+ * new staging folder is created.
+ *
+ * @author Nadahar
+ */
+public class StagingFolder {
+
+	/** The name infix of staging folders */
+	public static final String STAGING_INFIX = ".staging-";
+
+	/** The name infix of replaced folders waiting to be deleted */
+	public static final String OLD_INFIX = ".old-";
+
+	/** The age after which an abandoned staging folder is deleted */
+	protected static final long ABANDONED_AGE = TimeUnit.HOURS.toMillis(24);
+
+	/** The random generator used for naming staging folders */
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/** The thread counter used for naming */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/** The live folder */
+	@Nonnull
+	protected final Path liveFolder;
+
+	/** The staging folder */
+	@Nonnull
+	protected final Path folder;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param liveFolder the live folder.
+	 * @param folder the staging folder.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	protected StagingFolder(@Nonnull Path liveFolder, @Nonnull Path folder, @Nullable Log logger) {
+		this.liveFolder = liveFolder;
+		this.folder = folder;
+		this.logger = logger;
+	}
+
+	/**
+	 * Creates a new staging folder next to the specified live folder.
+	 *
+	 * @param liveFolder the live folder.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The new {@link StagingFolder}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	public static StagingFolder create(@Nonnull Path liveFolder, @Nullable Log logger) throws IOException {
+		Path live = liveFolder.toAbsolutePath().normalize();
+		Path parent = live.getParent();
+		if (parent == null || live.getFileName() == null) {
+			throw new IOException("Can't create a staging folder for \"" + live + "\"");
+		}
+		Files.createDirectories(parent);
+		deleteLeftovers(live, logger);
+		Path folder = createUniqueFolder(parent, live.getFileName() + STAGING_INFIX);
+		if (logger != null) {
+			logger.debug("Created staging folder \"" + folder + "\"");
+		}
+		return new StagingFolder(live, folder, logger);
+	}
+
+	/**
+	 * Creates a new folder with a unique name starting with the specified
+	 * prefix. Unlike {@link Files#createTempDirectory}, the folder is created
+	 * with the default permissions so that the live folder keeps them when the
+	 * staging folder replaces it.
+	 *
+	 * @param parent the folder in which to create the new folder.
+	 * @param prefix the name prefix of the new folder.
+	 * @return The new folder.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nonnull
+	protected static Path createUniqueFolder(@Nonnull Path parent, @Nonnull String prefix) throws IOException {
+		while (true) {
+			Path folder = parent.resolve(prefix + Long.toString(RANDOM.nextLong() & Long.MAX_VALUE, 36));
+			try {
+				return Files.createDirectory(folder);
+			} catch (FileAlreadyExistsException e) {
+				// Try another name
+			}
+		}
+	}
+
+	/**
+	 * @return The staging folder.
+	 */
+	@Nonnull
+	public Path getFolder() {
+		return folder;
+	}
+
+	/**
+	 * @return The live folder.
+	 */
+	@Nonnull
+	public Path getLiveFolder() {
+		return liveFolder;
+	}
+
+	/**
+	 * Replaces the live folder with the staging folder. The previous live
+	 * folder is renamed and deleted in the background.
+	 *
+	 * @throws IOException If an error occurs during the operation, in which
+	 *             case the live folder is left untouched.
+	 */
+	public void commit() throws IOException {
+		Path old = null;
+		if (Files.exists(liveFolder)) {
+			old = Files.createTempDirectory(liveFolder.getParent(), liveFolder.getFileName() + OLD_INFIX);
+			Files.delete(old);
+			move(liveFolder, old);
+		}
+		try {
+			move(folder, liveFolder);
+		} catch (IOException e) {
+			if (old != null) {
+				move(old, liveFolder);
+			}
+			throw e;
+		}
+		if (logger != null) {
+			logger.debug("Replaced \"" + liveFolder + "\" with \"" + folder + "\"");
+		}
+		if (old != null) {
+			deleteInBackground(old, logger);
+		}
+	}
+
+	/**
+	 * Deletes the staging folder in the background, leaving the live folder
+	 * untouched.
+	 */
+	public void discard() {
+		if (Files.exists(folder)) {
+			deleteInBackground(folder, logger);
+		}
+	}
+
+	/**
+	 * Renames a folder, atomically if supported by the file system.
+	 *
+	 * @param source the folder to rename.
+	 * @param target the new {@link Path}.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected static void move(@Nonnull Path source, @Nonnull Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target);
+		}
+	}
+
+	/**
+	 * Deletes replaced folders and abandoned staging folders belonging to the
+	 * specified live folder in the background.
+	 *
+	 * @param liveFolder the live folder.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	protected static void deleteLeftovers(@Nonnull Path liveFolder, @Nullable Log logger) {
+		String oldPrefix = liveFolder.getFileName() + OLD_INFIX;
+		String stagingPrefix = liveFolder.getFileName() + STAGING_INFIX;
+		long abandoned = System.currentTimeMillis() - ABANDONED_AGE;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(liveFolder.getParent())) {
+			for (Path entry : stream) {
+				String name = entry.getFileName().toString();
+				if (
+					name.startsWith(oldPrefix) ||
+					name.startsWith(stagingPrefix) && Files.getLastModifiedTime(entry).toMillis() < abandoned
+				) {
+					deleteInBackground(entry, logger);
+				}
+			}
+		} catch (IOException e) {
+			if (logger != null) {
+				logger.debug("Failed to look for leftovers of \"" + liveFolder + "\": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Deletes the specified file or folder recursively using a daemon thread.
+	 * Anything left behind if the JVM exits first is deleted the next time a
+	 * staging folder is created for the same live folder.
+	 *
+	 * @param path the file or folder to delete.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The deleting {@link Thread}.
+	 */
+	@Nonnull
+	public static Thread deleteInBackground(@Nonnull final Path path, @Nullable final Log logger) {
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					delete(path);
+				} catch (IOException e) {
+					if (logger != null) {
+						logger.debug("Failed to delete \"" + path + "\": " + e.getMessage());
+					}
+				}
+			}
+		}, "crowdin-delete-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Deletes the specified file or folder recursively.
+	 *
+	 * @param path the file or folder to delete.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static void delete(@Nonnull Path path) throws IOException {
+		try {
+			Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Files.delete(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+					if (exc != null) {
+						throw exc;
+					}
+					Files.delete(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (NoSuchFileException e) {
+			// Already deleted
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Crowdin Maven Plugin, an Apache Maven plugin for synchronizing translation
+ * files using the crowdin.com API.
+ * Copyright (C) 2018 Digital Media Server developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.digitalmediaserver.crowdin.tool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.logging.Log;
+
+
+/**
+ * Extracts zip archives to a target folder. Each entry is copied until the end
+ * of the entry using a large buffer that is reused for all entries, entry
+ * names that would resolve outside the target folder are rejected and parent
+ * folders are only created when needed.
+ * <p>
+ * Instances aren't thread-safe, but
+ * {@link #extract(Path, Path, int, Log)} extracts a zip file using multiple
+ * threads.
+ *
+ * @author Nadahar
+ */
+public class ZipExtractor {
+
+	/** The size of the copy buffer */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The thread counter used for naming */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/** The target folder */
+	@Nonnull
+	protected final Path targetFolder;
+
+	/** The {@link Log} instance to use for logging */
+	@Nullable
+	protected final Log logger;
+
+	/** The copy buffer */
+	@Nonnull
+	protected final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/** The folders known to exist */
+	@Nonnull
+	protected final Set<Path> existingFolders = new HashSet<>();
+
+	/**
+	 * Creates a new instance using the specified parameters.
+	 *
+	 * @param targetFolder the folder to extract to.
+	 * @param logger the {@link Log} instance to use for logging.
+	 */
+	public ZipExtractor(@Nonnull Path targetFolder, @Nullable Log logger) {
+		this.targetFolder = targetFolder.toAbsolutePath().normalize();
+		this.logger = logger;
+	}
+
+	/**
+	 * @return The target folder.
+	 */
+	@Nonnull
+	public Path getTargetFolder() {
+		return targetFolder;
+	}
+
+	/**
+	 * Extracts all entries from the specified zip stream.
+	 *
+	 * @param inputStream the {@link InputStream} containing the zip archive.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public int extract(@Nonnull InputStream inputStream) throws IOException {
+		int count = 0;
+		ZipInputStream zis = new ZipInputStream(inputStream);
+		ZipEntry entry;
+		while ((entry = zis.getNextEntry()) != null) {
+			if (extractEntry(entry, zis) != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Extracts all entries from the specified zip file using a bounded pool
+	 * of worker threads. The entries are split into groups by their top level
+	 * folder, which is the language folder for crowdin archives, and each
+	 * group is extracted by a single worker.
+	 *
+	 * @param zipFile the zip file to extract.
+	 * @param targetFolder the folder to extract to.
+	 * @param threads the maximum number of worker threads.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static int extract(
+		@Nonnull Path zipFile,
+		@Nonnull Path targetFolder,
+		int threads,
+		@Nullable Log logger
+	) throws IOException {
+		return extract(zipFile, targetFolder, null, threads, logger);
+	}
+
+	/**
+	 * Extracts the specified entries from the specified zip file using a
+	 * bounded pool of worker threads. The entries are split into groups by
+	 * their top level folder, which is the language folder for crowdin
+	 * archives, and each group is extracted by a single worker.
+	 *
+	 * @param zipFile the zip file to extract.
+	 * @param targetFolder the folder to extract to.
+	 * @param entryNames the names of the entries to extract or {@code null}
+	 *            to extract all entries.
+	 * @param threads the maximum number of worker threads.
+	 * @param logger the {@link Log} instance to use for logging.
+	 * @return The number of extracted files.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static int extract(
+		@Nonnull Path zipFile,
+		@Nonnull Path targetFolder,
+		@Nullable Set<String> entryNames,
+		int threads,
+		@Nullable final Log logger
+	) throws IOException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive");
+		}
+		final Path target = targetFolder.toAbsolutePath().normalize();
+		try (final ZipFile zip = new ZipFile(zipFile.toFile())) {
+			Map<String, List<ZipEntry>> groups = new LinkedHashMap<>();
+			for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (entryNames != null && !entryNames.contains(name)) {
+					continue;
+				}
+				int slash = name.indexOf('/');
+				String group = slash < 0 ? "" : name.substring(0, slash);
+				List<ZipEntry> groupEntries = groups.get(group);
+				if (groupEntries == null) {
+					groupEntries = new ArrayList<>();
+					groups.put(group, groupEntries);
+				}
+				groupEntries.add(entry);
+			}
+			if (groups.isEmpty()) {
+				return 0;
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(threads, groups.size()),
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "crowdin-extract-" + THREAD_COUNTER.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+			);
+			try {
+				List<Future<Integer>> futures = new ArrayList<>(groups.size());
+				for (final List<ZipEntry> groupEntries : groups.values()) {
+					futures.add(executor.submit(new Callable<Integer>() {
+
+						@Override
+						public Integer call() throws IOException {
+							ZipExtractor extractor = new ZipExtractor(target, logger);
+							int count = 0;
+							for (ZipEntry entry : groupEntries) {
+								try (InputStream is = zip.getInputStream(entry)) {
+									if (extractor.extractEntry(entry, is) != null) {
+										count++;
+									}
+								}
+							}
+							return Integer.valueOf(count);
+						}
+					}));
+				}
+
+				// Wait for all, reporting the first failure in submission order
+				int count = 0;
+				IOException exception = null;
+				for (Future<Integer> future : futures) {
+					try {
+						count += AsyncCrowdinAPI.get(future).intValue();
+					} catch (IOException e) {
+						if (exception == null) {
+							exception = e;
+						}
+					}
+				}
+				if (exception != null) {
+					throw exception;
+				}
+				return count;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Extracts a single entry.
+	 *
+	 * @param entry the {@link ZipEntry} to extract.
+	 * @param inputStream the {@link InputStream} positioned at the start of the
+	 *            entry data. It isn't closed.
+	 * @return The {@link Path} of the extracted file or {@code null} if
+	 *         {@code entry} is a folder.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	@Nullable
+	public Path extractEntry(@Nonnull ZipEntry entry, @Nonnull InputStream inputStream) throws IOException {
+		Path path = resolveEntry(entry.getName());
+		if (entry.isDirectory()) {
+			if (logger != null) {
+				logger.debug("Creating folder \"" + entry.getName() + "\"");
+			}
+			createFolder(path);
+			return null;
+		}
+		if (logger != null) {
+			logger.debug("Writing \"" + entry.getName() + "\"");
+		}
+		Path parent = path.getParent();
+		if (parent != null) {
+			createFolder(parent);
+		}
+		try (OutputStream os = Files.newOutputStream(path)) {
+			copy(inputStream, os, buffer);
+		}
+		return path;
+	}
+
+	/**
+	 * Resolves the specified entry name against the target folder.
+	 *
+	 * @param entryName the zip entry name.
+	 * @return The resolved {@link Path}.
+	 * @throws IOException If {@code entryName} resolves to a location outside
+	 *             the target folder.
+	 */
+	@Nonnull
+	public Path resolveEntry(@Nonnull String entryName) throws IOException {
+		Path path = targetFolder.resolve(entryName).normalize();
+		if (!path.startsWith(targetFolder) || path.equals(targetFolder)) {
+			throw new IOException("Invalid zip entry \"" + entryName + "\" resolves outside the target folder");
+		}
+		return path;
+	}
+
+	/**
+	 * Creates the specified folder and its parents unless it's already known
+	 * to exist.
+	 *
+	 * @param folder the folder to create.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	protected void createFolder(@Nonnull Path folder) throws IOException {
+		if (existingFolders.add(folder)) {
+			Files.createDirectories(folder);
+		}
+	}
+
+	/**
+	 * Copies everything from {@code inputStream} to {@code outputStream} until
+	 * the end of {@code inputStream} is reached.
+	 *
+	 * @param inputStream the {@link InputStream} to read from.
+	 * @param outputStream the {@link OutputStream} to write to.
+	 * @param buffer the buffer to use.
+	 * @return The number of copied bytes.
+	 * @throws IOException If an error occurs during the operation.
+	 */
+	public static long copy(
+		@Nonnull InputStream inputStream,
+		@Nonnull OutputStream outputStream,
+		@Nonnull byte[] buffer
+	) throws IOException {
+		long total = 0;
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, read);
+			total += read;
+		}
+		return total;
+	}
+}